@@ -0,0 +1,303 @@
+package es.common.datasource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Data source that sends the connections of the read-only transactions to a pool of replicas,
+ * and the rest to the primary database.<br><br>
+ *
+ * After a write transaction is committed, the thread keeps reading from the primary during the
+ * stickiness time, so it reads its own writes even if the replicas are behind. The stickiness
+ * is kept by thread: it does not follow the work handed to other threads, nor the following
+ * requests of the same client, which may read from the replicas, and it must be cleared when
+ * the thread is given back to its pool, as the {@link ReplicaStickinessFilter} does at the end
+ * of every request. The connections
+ * are only routed once the transaction has started, so this data source must be used through
+ * the proxy built by {@link #lazy}, which takes the connection on the first statement:
+ *
+ * <pre>
+ * &#64;Bean
+ * public DataSource dataSource() {
+ *     return ReadReplicaRoutingDataSource.lazy(primary, List.of(replica1, replica2),
+ *             ReplicaSelection.ROUND_ROBIN, Duration.ofSeconds(2));
+ * }
+ * </pre>
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	// #############
+	// # Constants #
+	// #############
+
+	public static final String PRIMARY = "primary";
+
+	private static final ThreadLocal<Long> STICKY_UNTIL = new ThreadLocal<>();
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final List<CountingDataSource> replicas;
+
+	private final ReplicaSelection selection;
+
+	private final long stickinessNanos;
+
+	private final AtomicInteger turn = new AtomicInteger();
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param primary the primary database
+	 * @param replicas the replicas, if empty every connection goes to the primary
+	 * @param selection the strategy to choose the replica
+	 * @param stickiness time that a thread reads from the primary after a write, may be zero
+	 */
+	public ReadReplicaRoutingDataSource(@NotNull DataSource primary, @NotNull List<DataSource> replicas,
+			@NotNull ReplicaSelection selection, @NotNull Duration stickiness) {
+
+		this.replicas = new ArrayList<>(replicas.size());
+		this.selection = selection;
+		this.stickinessNanos = stickiness.toNanos();
+
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+
+		for (int i = 0; i < replicas.size(); i++) {
+
+			CountingDataSource replica = new CountingDataSource(replicas.get(i));
+			this.replicas.add(replica);
+			targets.put(replicaKey(i), replica);
+		}
+
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Builds the routing data source, wrapped on the proxy that takes the connections lazily
+	 *
+	 * @return the data source to be used by the application
+	 * @see #ReadReplicaRoutingDataSource(DataSource, List, ReplicaSelection, Duration)
+	 */
+	public static LazyConnectionDataSourceProxy lazy(@NotNull DataSource primary, @NotNull List<DataSource> replicas,
+			@NotNull ReplicaSelection selection, @NotNull Duration stickiness) {
+
+		return new LazyConnectionDataSourceProxy(
+				new ReadReplicaRoutingDataSource(primary, replicas, selection, stickiness));
+	}
+
+	/**
+	 * Makes the current thread read from the primary during the given time
+	 *
+	 * @param duration the time
+	 */
+	public static void stickToPrimary(@NotNull Duration duration) {
+
+		STICKY_UNTIL.set(System.nanoTime() + duration.toNanos());
+	}
+
+	/**
+	 * Lets the current thread read from the replicas again, for example at the end of a request
+	 *
+	 * @see ReplicaStickinessFilter
+	 */
+	public static void clearStickiness() {
+
+		STICKY_UNTIL.remove();
+	}
+
+	/**
+	 * Indicates if the current thread reads from the primary after a recent write
+	 *
+	 * @return true if the thread reads from the primary
+	 */
+	public static boolean isStickyToPrimary() {
+
+		Long stickyUntil = STICKY_UNTIL.get();
+
+		if (stickyUntil == null)
+			return false;
+
+		if (System.nanoTime() - stickyUntil < 0)
+			return true;
+
+		STICKY_UNTIL.remove();
+		return false;
+	}
+
+	/**
+	 * Returns the connections in use of every replica
+	 *
+	 * @return the connections in use, on the order of the replicas
+	 */
+	public int[] getReplicaLoads() {
+
+		int[] loads = new int[replicas.size()];
+
+		for (int i = 0; i < loads.length; i++)
+			loads[i] = replicas.get(i).active.get();
+
+		return loads;
+	}
+
+	// #####################
+	// # Protected methods #
+	// #####################
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+
+		boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+
+		if (!readOnly) {
+
+			registerStickiness();
+			return PRIMARY;
+		}
+
+		if (replicas.isEmpty() || isStickyToPrimary())
+			return PRIMARY;
+
+		return replicaKey(selectReplica());
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private int selectReplica() {
+
+		if (selection == ReplicaSelection.ROUND_ROBIN)
+			return Math.floorMod(turn.getAndIncrement(), replicas.size());
+
+		// Least loaded, the ties are broken in turns so the load is spread
+		int start = Math.floorMod(turn.getAndIncrement(), replicas.size());
+		int best = start;
+
+		for (int i = 1; i < replicas.size(); i++) {
+
+			int candidate = (start + i) % replicas.size();
+
+			if (replicas.get(candidate).active.get() < replicas.get(best).active.get())
+				best = candidate;
+		}
+
+		return best;
+	}
+
+	/**
+	 * Makes the thread stick to the primary once the current write transaction is committed
+	 */
+	private void registerStickiness() {
+
+		if (stickinessNanos <= 0L
+				|| !TransactionSynchronizationManager.isSynchronizationActive()
+				|| TransactionSynchronizationManager.hasResource(this))
+			return;
+
+		TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCompletion(int status) {
+
+				TransactionSynchronizationManager.unbindResourceIfPossible(ReadReplicaRoutingDataSource.this);
+
+				if (status == STATUS_COMMITTED)
+					STICKY_UNTIL.set(System.nanoTime() + stickinessNanos);
+			}
+		});
+	}
+
+	private static String replicaKey(int index) {
+
+		return "replica-" + index;
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Data source that counts its connections in use
+	 */
+	private static class CountingDataSource extends DelegatingDataSource {
+
+		private final AtomicInteger active = new AtomicInteger();
+
+		CountingDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return counted(super.getConnection());
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return counted(super.getConnection(username, password));
+		}
+
+		private Connection counted(Connection connection) {
+
+			active.incrementAndGet();
+			AtomicBoolean closed = new AtomicBoolean();
+
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+
+						// The identity is the one of the proxy, which is the connection handed out
+						if ("equals".equals(method.getName()))
+							return proxy == args[0];
+
+						if ("hashCode".equals(method.getName()))
+							return System.identityHashCode(proxy);
+
+						if ("toString".equals(method.getName()))
+							return "Counted connection [" + connection + "]";
+
+						if ("close".equals(method.getName()) && closed.compareAndSet(false, true))
+							active.decrementAndGet();
+
+						try {
+							return method.invoke(connection, args);
+						} catch (InvocationTargetException e) {
+							throw e.getTargetException();
+						}
+					});
+		}
+	}
+
+}
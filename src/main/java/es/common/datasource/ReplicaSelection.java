@@ -0,0 +1,20 @@
+package es.common.datasource;
+
+/**
+ * Strategy used to choose the replica of every read-only connection
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public enum ReplicaSelection {
+
+	/**
+	 * The replicas are used in turns
+	 */
+	ROUND_ROBIN,
+
+	/**
+	 * The replica with less connections in use is used
+	 */
+	LEAST_LOADED
+}
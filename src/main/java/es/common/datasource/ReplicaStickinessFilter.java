@@ -0,0 +1,63 @@
+package es.common.datasource;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter that scopes the stickiness to the primary of {@link ReadReplicaRoutingDataSource} to
+ * the request: the stickiness left by the previous request served by the same thread is
+ * cleared when a request starts, and the one of the request when it ends, so it never leaks
+ * to the requests of other clients served later by the pooled thread. For example:
+ *
+ * <pre>
+ * &#64;Bean
+ * public FilterRegistrationBean&lt;ReplicaStickinessFilter&gt; replicaStickinessFilter() {
+ *     return new FilterRegistrationBean&lt;&gt;(new ReplicaStickinessFilter());
+ * }
+ * </pre>
+ *
+ * The reads that follow a write on the same request go to the primary, but the following
+ * requests of the same client may be served by the replicas.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class ReplicaStickinessFilter extends OncePerRequestFilter {
+
+	// #####################
+	// # Protected methods #
+	// #####################
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		ReadReplicaRoutingDataSource.clearStickiness();
+
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			ReadReplicaRoutingDataSource.clearStickiness();
+		}
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+
+		// The asynchronous dispatches run on other threads, which must be cleared too
+		return false;
+	}
+
+	@Override
+	protected boolean shouldNotFilterErrorDispatch() {
+
+		return false;
+	}
+
+}
@@ -0,0 +1,138 @@
+package es.common.datasource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Data source that sends the connections to the shard selected on the current thread with
+ * {@link #runOn(int, Supplier)}. The shard must be selected before the transaction starts, as
+ * {@link es.common.service.ShardedService} does.<br><br>
+ *
+ * The connections taken without a shard selected go to the first shard, the
+ * {@value #DEFAULT_SHARD} one, so the startup of the application works: the JDBC metadata, the
+ * dialect detection or the schema generation use that shard. The schema of the other shards
+ * must be managed on its own, for example running the migrations on every shard.<br><br>
+ *
+ * Like the {@link ReadReplicaRoutingDataSource}, it should be used through the proxy built by
+ * {@link #lazy(List)}.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+	/**
+	 * Shard of the connections taken without a shard selected
+	 */
+	public static final int DEFAULT_SHARD = 0;
+
+	private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+	private final int shardCount;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param shards the data sources of the shards, on its fixed order
+	 */
+	public ShardRoutingDataSource(@NotNull List<DataSource> shards) {
+
+		if (shards.isEmpty())
+			throw new IllegalArgumentException("There must be at least one shard");
+
+		Map<Object, Object> targets = new HashMap<>();
+
+		for (int i = 0; i < shards.size(); i++)
+			targets.put(i, shards.get(i));
+
+		this.shardCount = shards.size();
+
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(shards.get(DEFAULT_SHARD));
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Builds the routing data source, wrapped on the proxy that takes the connections lazily
+	 *
+	 * @param shards the data sources of the shards, on its fixed order
+	 * @return the data source to be used by the application
+	 */
+	public static LazyConnectionDataSourceProxy lazy(@NotNull List<DataSource> shards) {
+
+		return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+	}
+
+	/**
+	 * Runs the given action with the connections sent to the given shard. It can not be called
+	 * inside a transaction, whose connection is already taken, unless it is on the same shard
+	 *
+	 * @param shard the shard
+	 * @param action the action
+	 * @return the result of the action
+	 * @throws IllegalStateException if a transaction is active on another shard
+	 */
+	public static <T> T runOn(int shard, @NotNull Supplier<T> action) {
+
+		Integer previous = CURRENT_SHARD.get();
+
+		if (TransactionSynchronizationManager.isActualTransactionActive()
+				&& (previous == null || previous != shard))
+			throw new IllegalStateException("The shard " + shard + " must be selected before the transaction starts");
+		CURRENT_SHARD.set(shard);
+
+		try {
+			return action.get();
+		} finally {
+
+			if (previous == null)
+				CURRENT_SHARD.remove();
+			else
+				CURRENT_SHARD.set(previous);
+		}
+	}
+
+	/**
+	 * Returns the shard selected on the current thread
+	 *
+	 * @return the shard, or null if none is selected
+	 */
+	public static Integer currentShard() {
+
+		return CURRENT_SHARD.get();
+	}
+
+	public int getShardCount() {
+
+		return shardCount;
+	}
+
+	// #####################
+	// # Protected methods #
+	// #####################
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+
+		// Without a shard the default data source is used
+		return CURRENT_SHARD.get();
+	}
+
+}
@@ -0,0 +1,88 @@
+package es.common.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Strategy that chooses the shard of an entity from its key
+ *
+ * @param <K> the identifier of the entity
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@FunctionalInterface
+public interface ShardStrategy<K> {
+
+	/**
+	 * Returns the shard of the given key
+	 *
+	 * @param key the key of the entity
+	 * @param shardCount the number of shards
+	 * @return the shard, from 0 to shardCount - 1
+	 */
+	int shardOf(@NotNull K key, int shardCount);
+
+	/**
+	 * Strategy that spreads the keys evenly by their hash. The keys must have a stable hash,
+	 * as numbers, strings or UUIDs do
+	 *
+	 * @return the strategy
+	 */
+	static <K> ShardStrategy<K> hash() {
+
+		return (key, shardCount) -> {
+
+			// Final mixer of MurmurHash3, so the consecutive keys are spread too
+			long hash = key.hashCode();
+			hash ^= hash >>> 33;
+			hash *= 0xFF51AFD7ED558CCDL;
+			hash ^= hash >>> 33;
+
+			return (int) Math.floorMod(hash, (long) shardCount);
+		};
+	}
+
+	/**
+	 * Strategy that assigns ranges of keys to the shards: the keys lower than the first bound go
+	 * to the shard 0, the ones lower than the second bound to the shard 1, and so on
+	 *
+	 * @param upperBounds the exclusive upper bounds of every shard but the last one, ascending
+	 * @return the strategy
+	 */
+	static <K extends Comparable<? super K>> ShardStrategy<K> range(@NotNull List<K> upperBounds) {
+
+		List<K> bounds = new ArrayList<>(upperBounds);
+
+		for (int i = 1; i < bounds.size(); i++) {
+
+			if (bounds.get(i - 1).compareTo(bounds.get(i)) >= 0)
+				throw new IllegalArgumentException("The bounds must be ascending");
+		}
+
+		return (key, shardCount) -> {
+
+			if (bounds.size() != shardCount - 1)
+				throw new IllegalStateException("There must be one bound less than shards");
+
+			int low = 0;
+			int high = bounds.size();
+
+			// First bound greater than the key
+			while (low < high) {
+
+				int middle = (low + high) >>> 1;
+
+				if (key.compareTo(bounds.get(middle)) < 0)
+					high = middle;
+				else
+					low = middle + 1;
+			}
+
+			return low;
+		};
+	}
+
+}
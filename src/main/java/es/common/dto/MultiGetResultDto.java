@@ -0,0 +1,48 @@
+package es.common.dto;
+
+import java.util.List;
+
+import org.springframework.hateoas.EntityModel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Result of a multi-get request. The entities found keep the order of the requested
+ * identifiers, and the identifiers that were not found are reported together
+ *
+ * @param <T> the DTO (full or minified) of the entities found
+ * @param <K> the identifier of the entity
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetResultDto<T, K> {
+
+	/**
+	 * Entities found, on the same order as the requested identifiers
+	 */
+	private List<EntityModel<T>> found;
+
+	/**
+	 * Requested identifiers without entity
+	 */
+	private List<K> missingIds;
+
+	/**
+	 * Indicates if any of the requested identifiers was not found
+	 *
+	 * @return true if at least one entity is missing
+	 */
+	public boolean hasMissing() {
+
+		return missingIds != null && !missingIds.isEmpty();
+	}
+
+}
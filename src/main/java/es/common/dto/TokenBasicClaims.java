@@ -1,5 +1,206 @@
 package es.common.dto;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import es.common.util.PermissionRegistry;
+import es.common.util.TokenUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+
+/**
+ * Typed representation of the basic claims of the tokens: the user, its roles and its
+ * granted and revoked permissions.<br><br>
+ *
+ * The roles and permissions are stored as bitsets over a {@link PermissionRegistry}, so the
+ * checks are a single bit test and the claims are sent on the token as short base64 strings.
+ * The claims are immutable: the bitsets are copied when they are received and returned.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
 public class TokenBasicClaims {
 
+	/**
+	 * Identifier of the user
+	 */
+	private final Long userId;
+
+	/**
+	 * Name of the user, the subject of the token
+	 */
+	private final String username;
+
+	private final BitSet roles;
+
+	private final BitSet permissionsGranted;
+
+	private final BitSet permissionsRevoked;
+
+	private final PermissionRegistry roleRegistry;
+
+	private final PermissionRegistry permissionRegistry;
+
+	public TokenBasicClaims(Long userId, String username, BitSet roles, BitSet permissionsGranted,
+			BitSet permissionsRevoked, PermissionRegistry roleRegistry, PermissionRegistry permissionRegistry) {
+
+		this.userId = userId;
+		this.username = username;
+		this.roles = (BitSet) roles.clone();
+		this.permissionsGranted = (BitSet) permissionsGranted.clone();
+		this.permissionsRevoked = (BitSet) permissionsRevoked.clone();
+		this.roleRegistry = roleRegistry;
+		this.permissionRegistry = permissionRegistry;
+	}
+
+	/**
+	 * Builds the typed claims from the names of the roles and permissions
+	 *
+	 * @return the typed claims
+	 * @throws IllegalArgumentException if any name is not registered
+	 */
+	public static TokenBasicClaims of(Long userId, String username, @NotNull Collection<String> roles,
+			@NotNull Collection<String> permissionsGranted, @NotNull Collection<String> permissionsRevoked,
+			@NotNull PermissionRegistry roleRegistry, @NotNull PermissionRegistry permissionRegistry) {
+
+		return new TokenBasicClaims(userId, username,
+				roleRegistry.toBitSet(roles),
+				permissionRegistry.toBitSet(permissionsGranted),
+				permissionRegistry.toBitSet(permissionsRevoked),
+				roleRegistry,
+				permissionRegistry);
+	}
+
+	/**
+	 * Builds the typed claims from the claims of a validated token. Besides the encoded
+	 * bitsets, the claims sent as lists of names are also accepted
+	 *
+	 * @param claims the claims of the token
+	 * @param roleRegistry the registry of the roles
+	 * @param permissionRegistry the registry of the permissions
+	 * @return the typed claims
+	 * @throws JwtException if any encoded bitset is not well formatted
+	 */
+	public static TokenBasicClaims from(@NotNull Claims claims, @NotNull PermissionRegistry roleRegistry,
+			@NotNull PermissionRegistry permissionRegistry) {
+
+		Object userId = claims.get(TokenUtils.SECURITY_USER);
+
+		return new TokenBasicClaims(
+				(userId instanceof Number) ? ((Number) userId).longValue() : null,
+				claims.getSubject(),
+				readBits(claims.get(TokenUtils.ROLES), roleRegistry),
+				readBits(claims.get(TokenUtils.PERMISSIONS_GRANTED), permissionRegistry),
+				readBits(claims.get(TokenUtils.PERMISSIONS_REVOKED), permissionRegistry),
+				roleRegistry,
+				permissionRegistry);
+	}
+
+	/**
+	 * Returns the roles of the user
+	 *
+	 * @return a copy of the bitset of the roles
+	 */
+	public BitSet getRoles() {
+
+		return (BitSet) roles.clone();
+	}
+
+	/**
+	 * Returns the permissions granted to the user
+	 *
+	 * @return a copy of the bitset of the granted permissions
+	 */
+	public BitSet getPermissionsGranted() {
+
+		return (BitSet) permissionsGranted.clone();
+	}
+
+	/**
+	 * Returns the permissions revoked to the user
+	 *
+	 * @return a copy of the bitset of the revoked permissions
+	 */
+	public BitSet getPermissionsRevoked() {
+
+		return (BitSet) permissionsRevoked.clone();
+	}
+
+	/**
+	 * Indicates if the user has the given role
+	 *
+	 * @param role the role name
+	 * @return true if the role is registered and the user has it
+	 */
+	public boolean hasRole(String role) {
+
+		int position = roleRegistry.indexOf(role);
+
+		return position >= 0 && roles.get(position);
+	}
+
+	/**
+	 * Indicates if the user has the given permission, that is, if it is granted and not revoked
+	 *
+	 * @param permission the permission name
+	 * @return true if the permission is registered, granted and not revoked
+	 */
+	public boolean hasPermission(String permission) {
+
+		int position = permissionRegistry.indexOf(permission);
+
+		return position >= 0 && permissionsGranted.get(position) && !permissionsRevoked.get(position);
+	}
+
+	/**
+	 * Returns the claims to be added to the token, with the roles and permissions encoded
+	 *
+	 * @return the claims
+	 */
+	public Map<String, Object> toClaims() {
+
+		Map<String, Object> claims = new HashMap<>();
+
+		if (userId != null)
+			claims.put(TokenUtils.SECURITY_USER, userId);
+
+		claims.put(TokenUtils.ROLES, PermissionRegistry.encode(roles));
+		claims.put(TokenUtils.PERMISSIONS_GRANTED, PermissionRegistry.encode(permissionsGranted));
+		claims.put(TokenUtils.PERMISSIONS_REVOKED, PermissionRegistry.encode(permissionsRevoked));
+
+		return claims;
+	}
+
+	private static BitSet readBits(Object claim, PermissionRegistry registry) {
+
+		if (claim instanceof String) {
+
+			try {
+				return PermissionRegistry.decode((String) claim);
+			} catch (IllegalArgumentException e) {
+				throw new JwtException("Token claims are not well formatted", e);
+			}
+		}
+
+		BitSet bits = new BitSet();
+
+		if (claim instanceof Collection) {
+
+			for (Object name : (Collection<?>) claim) {
+
+				int position = registry.indexOf(String.valueOf(name));
+
+				if (position >= 0)
+					bits.set(position);
+			}
+		}
+
+		return bits;
+	}
+
 }
@@ -0,0 +1,36 @@
+package es.common.dto;
+
+import java.util.List;
+
+import org.springframework.hateoas.EntityModel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Result of a save or update request, with the rows split by the operation applied to them
+ *
+ * @param <D> the DTO associated with the domain entity
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpsertResultDto<D> {
+
+	/**
+	 * Rows that did not exist and were inserted
+	 */
+	private List<EntityModel<D>> inserted;
+
+	/**
+	 * Rows that already existed and were updated
+	 */
+	private List<EntityModel<D>> updated;
+
+}
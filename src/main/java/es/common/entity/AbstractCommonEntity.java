@@ -1,9 +1,10 @@
 package es.common.entity;
 
 import java.io.Serializable;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
+import es.common.util.UtcClock;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.MappedSuperclass;
 import jakarta.persistence.PrePersist;
@@ -98,7 +99,7 @@ public abstract class AbstractCommonEntity<K extends Serializable>
 	/**
 	 * Execute before persisting new element on database.
 	 * Sets active and versionLock to default and created and modifiedAt are defined
-	 * as current time on UTC
+	 * as current time on UTC (shared by the whole batch, if one is open on {@link UtcClock})
 	 * 
 	 * Checks if modifiedBy is present, otherwise the default value is used
 	 */
@@ -107,7 +108,7 @@ public abstract class AbstractCommonEntity<K extends Serializable>
         
 		this.active = DEFAULT_ACTIVE;
 		this.versionLock = DEFAULT_VERSION_LOCK;
-		this.createdAt = ZonedDateTime.now(ZoneId.of("UTC"));
+		this.createdAt = UtcClock.now();
 		this.modifiedAt = this.createdAt;
 		
 		if (this.modifiedBy == null)
@@ -123,7 +124,7 @@ public abstract class AbstractCommonEntity<K extends Serializable>
     @PreUpdate
     private void onPreUpdate() {
         
-    	this.modifiedAt = ZonedDateTime.now(ZoneId.of("UTC"));
+    	this.modifiedAt = UtcClock.now();
     	
     	if (this.modifiedBy == null)
 			this.modifiedBy = DEFAULT_MODIFIED_BY;
@@ -0,0 +1,29 @@
+package es.common.entity;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Marks the identifier of an entity to be generated by the {@link TimeOrderedIdGenerator} when
+ * the entity is persisted. The identifier may be a {@code Long} or a {@code long} (64-bit
+ * identifiers), a {@code UUID} or a {@code String} (UUIDv7). A {@code long} identifier is
+ * generated when it is 0. For example:
+ *
+ * <pre>
+ * &#64;Id
+ * &#64;TimeOrderedId
+ * private Long id;
+ * </pre>
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@IdGeneratorType(TimeOrderedIdentifierGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD })
+public @interface TimeOrderedId {
+}
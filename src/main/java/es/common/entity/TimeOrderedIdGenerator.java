@@ -0,0 +1,183 @@
+package es.common.entity;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.apachecommons.CommonsLog;
+
+/**
+ * Generator of time-ordered identifiers, which are assigned on the application without asking
+ * the database, so the inserts of new entities can be batched. Two kinds are generated:
+ * <ul>
+ * <li>64-bit identifiers: 41 bits of milliseconds since 2024-01-01, 10 bits of node and 12 bits
+ * of sequence, so every node generates up to 4096 identifiers per millisecond</li>
+ * <li>UUIDv7 (RFC 9562): 48 bits of Unix milliseconds, 12 bits of sequence and 62 random bits</li>
+ * </ul>
+ *
+ * Both are increasing on the same node, even if more identifiers than the sequence allows are
+ * asked on the same millisecond (the next millisecond is borrowed) or the clock goes back.
+ * The 64-bit identifiers are only unique between nodes with a different node number, taken
+ * from the {@value #NODE_PROPERTY} system property or the {@value #NODE_VARIABLE} environment
+ * variable. When none is set, a random node is used and a warning is logged: two nodes may then
+ * take the same number and generate the same identifiers, so every node that generates 64-bit
+ * identifiers must be configured with its own number. The UUIDs do not depend on the node.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@CommonsLog
+public final class TimeOrderedIdGenerator {
+
+	// #############
+	// # Constants #
+	// #############
+
+	public static final String NODE_PROPERTY = "es.common.id.node";
+
+	public static final String NODE_VARIABLE = "ID_NODE";
+
+	public static final int MAX_NODE = (1 << 10) - 1;
+
+	/**
+	 * Start of the timestamps of the 64-bit identifiers
+	 */
+	public static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+	private static final int SEQUENCE_BITS = 12;
+
+	private static final int NODE_BITS = 10;
+
+	private static final TimeOrderedIdGenerator DEFAULT = new TimeOrderedIdGenerator(defaultNode(), Clock.systemUTC());
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final long node;
+
+	private final Clock clock;
+
+	private final long epochMillis;
+
+	/**
+	 * Last milliseconds (since the epoch) and sequence of the 64-bit identifiers
+	 */
+	private final AtomicLong longState = new AtomicLong();
+
+	/**
+	 * Last Unix milliseconds and sequence of the UUIDs
+	 */
+	private final AtomicLong uuidState = new AtomicLong();
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param node the node number, from 0 to {@value #MAX_NODE}
+	 * @param clock the clock of the timestamps
+	 */
+	public TimeOrderedIdGenerator(int node, Clock clock) {
+
+		if (node < 0 || node > MAX_NODE)
+			throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE);
+
+		this.node = node;
+		this.clock = clock;
+		this.epochMillis = EPOCH.toEpochMilli();
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Returns the generator of the node configured on the system
+	 *
+	 * @return the default generator
+	 */
+	public static TimeOrderedIdGenerator getDefault() {
+
+		return DEFAULT;
+	}
+
+	/**
+	 * Generates a 64-bit identifier
+	 *
+	 * @return the identifier, positive and greater than the previous ones of this generator
+	 */
+	public long nextLong() {
+
+		long state = next(longState, clock.millis() - epochMillis);
+
+		return ((state >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+				| (node << SEQUENCE_BITS)
+				| (state & ((1L << SEQUENCE_BITS) - 1));
+	}
+
+	/**
+	 * Generates a UUIDv7
+	 *
+	 * @return the identifier, greater than the previous ones of this generator
+	 */
+	public UUID nextUuid() {
+
+		long state = next(uuidState, clock.millis());
+
+		long mostSignificant = ((state >>> SEQUENCE_BITS) << 16)
+				| 0x7000L
+				| (state & ((1L << SEQUENCE_BITS) - 1));
+
+		long leastSignificant = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+		return new UUID(mostSignificant, leastSignificant);
+	}
+
+	public int getNode() {
+
+		return (int) node;
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	/**
+	 * Advances the milliseconds and sequence state: a new millisecond restarts the sequence and
+	 * the same (or an older) one increments it, carrying into the milliseconds when it overflows
+	 */
+	private static long next(AtomicLong state, long millis) {
+
+		long current;
+		long next;
+
+		do {
+
+			current = state.get();
+			next = (millis > (current >>> SEQUENCE_BITS)) ? (millis << SEQUENCE_BITS) : current + 1;
+
+		} while (!state.compareAndSet(current, next));
+
+		return next;
+	}
+
+	private static int defaultNode() {
+
+		String configured = System.getProperty(NODE_PROPERTY, System.getenv(NODE_VARIABLE));
+
+		if (configured != null && !configured.isBlank())
+			return Integer.parseInt(configured.trim());
+
+		int node = new SecureRandom().nextInt(MAX_NODE + 1);
+
+		log.warn("No node configured with the " + NODE_PROPERTY + " property or the " + NODE_VARIABLE
+				+ " variable, using the random node " + node + ": the 64-bit identifiers may collide with other nodes");
+
+		return node;
+	}
+
+}
@@ -0,0 +1,69 @@
+package es.common.entity;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.EnumSet;
+import java.util.UUID;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+/**
+ * Hibernate generator of the identifiers marked with {@link TimeOrderedId}
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class TimeOrderedIdentifierGenerator implements BeforeExecutionGenerator {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Class<?> idType;
+
+	public TimeOrderedIdentifierGenerator(TimeOrderedId config, Member member,
+			CustomIdGeneratorCreationContext context) {
+
+		Class<?> type = (member instanceof Field)
+				? ((Field) member).getType()
+				: ((Method) member).getReturnType();
+
+		if (type != Long.class && type != long.class && type != UUID.class && type != String.class)
+			throw new IllegalArgumentException("Time ordered identifiers must be long, Long, UUID or String: " + member);
+
+		this.idType = type;
+	}
+
+	@Override
+	public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+			EventType eventType) {
+
+		// Identifiers already assigned by the application are kept. The current value is never
+		// received for the identifiers, so the identifier is read from the entity
+		Object assigned = session.getEntityPersister(null, owner).getIdentifier(owner, session);
+
+		// A primitive identifier can not be null, its unassigned value is 0
+		if (assigned != null && !(idType == long.class && ((Long) assigned) == 0L))
+			return assigned;
+
+		TimeOrderedIdGenerator generator = TimeOrderedIdGenerator.getDefault();
+
+		if (idType == UUID.class)
+			return generator.nextUuid();
+
+		if (idType == String.class)
+			return generator.nextUuid().toString();
+
+		return generator.nextLong();
+	}
+
+	@Override
+	public EnumSet<EventType> getEventTypes() {
+
+		return EventTypeSets.INSERT_ONLY;
+	}
+
+}
@@ -0,0 +1,40 @@
+package es.common.exception;
+
+import es.common.util.MessageUtils;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Entity not found exception that does not capture the stack trace.<br><br>
+ *
+ * A missing entity is an expected result of the lookups, which ends on a 404 response, so the
+ * stack trace is never used and capturing it is the most expensive part of the exception.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class StacklessEntityNotFoundException extends EntityNotFoundException {
+
+	private static final long serialVersionUID = 1L;
+
+	public StacklessEntityNotFoundException(String message) {
+		super(message);
+	}
+
+	/**
+	 * Builds the exception of the given entity class, with its pre-rendered message
+	 *
+	 * @param entityClazz the class of the missing entity
+	 * @return the exception
+	 */
+	public static StacklessEntityNotFoundException of(Class<?> entityClazz) {
+
+		return new StacklessEntityNotFoundException(MessageUtils.entityNotFoundExceptionMessage(entityClazz));
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+
+		return this;
+	}
+
+}
@@ -0,0 +1,22 @@
+package es.common.http;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when a request is not sent because the circuit of its host is open or
+ * because there are already too many calls in progress. It reaches the callers of the
+ * {@link org.springframework.web.client.RestTemplate} as a
+ * {@link org.springframework.web.client.ResourceAccessException}
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class CallRejectedException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CallRejectedException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,108 @@
+package es.common.http;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.config.HypermediaMappingInformation;
+import org.springframework.hateoas.server.mvc.TypeConstrainedMappingJackson2HttpMessageConverter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Configuration of the controllers to serve and read CBOR ({@code application/cbor}), the
+ * binary form of JSON, besides JSON. It is not scanned, it is imported with {@link EnableCbor}
+ * by the applications that want it.<br><br>
+ *
+ * The CBOR mappers are built from the {@link Jackson2ObjectMapperBuilder} of the context, so they
+ * share the Jackson configuration of the application, and the hypermedia models are written
+ * with the HAL configuration of Spring HATEOAS, as they are in JSON.<br><br>
+ *
+ * The CBOR converters are placed after the JSON ones, so JSON is still used with the clients
+ * that accept both or do not say what they accept, and CBOR is only used with the clients that
+ * ask for it first, as the rest templates configured with
+ * {@link es.common.util.RestTemplateUtil#enableCbor}.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class CborWebMvcConfigurer implements WebMvcConfigurer {
+
+	private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+	private final ObjectProvider<HypermediaMappingInformation> hypermediaMappings;
+
+	public CborWebMvcConfigurer(ObjectProvider<Jackson2ObjectMapperBuilder> builders,
+			ObjectProvider<HypermediaMappingInformation> hypermediaMappings) {
+
+		this.builders = builders;
+		this.hypermediaMappings = hypermediaMappings;
+
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+
+		converters.removeIf(CborWebMvcConfigurer::isCbor);
+
+		int position = 0;
+
+		for (int i = 0; i < converters.size(); i++) {
+
+			if (converters.get(i) instanceof MappingJackson2HttpMessageConverter)
+				position = i + 1;
+		}
+
+		converters.add(position, new MappingJackson2CborHttpMessageConverter(cborMapper(builder(), null)));
+
+		HypermediaMappingInformation hal = hypermediaMappings.orderedStream()
+				.filter(mapping -> mapping.getMediaTypes().contains(MediaTypes.HAL_JSON))
+				.findFirst()
+				.orElse(null);
+
+		if (hal != null)
+			converters.add(position, new TypeConstrainedMappingJackson2HttpMessageConverter(hal.getRootType(),
+					List.of(MediaType.APPLICATION_CBOR), cborMapper(builder(), hal)));
+	}
+
+	/**
+	 * Builds a CBOR mapper with the configuration of the given builder
+	 *
+	 * @param builder     the builder of the JSON mappers of the application
+	 * @param hypermedia  the hypermedia configuration to apply, as HAL, or null
+	 * @return the CBOR mapper
+	 */
+	public static ObjectMapper cborMapper(Jackson2ObjectMapperBuilder builder,
+			@Nullable HypermediaMappingInformation hypermedia) {
+
+		ObjectMapper mapper = builder.factory(new CBORFactory()).build();
+
+		return hypermedia == null ? mapper : hypermedia.configureObjectMapper(mapper);
+
+	}
+
+	private Jackson2ObjectMapperBuilder builder() {
+
+		// The builder bean of Spring Boot is a prototype, so each mapper gets a fresh one
+		return builders.getIfAvailable(Jackson2ObjectMapperBuilder::cbor);
+
+	}
+
+	private static boolean isCbor(HttpMessageConverter<?> converter) {
+
+		return converter instanceof MappingJackson2CborHttpMessageConverter
+				|| (converter instanceof MappingJackson2HttpMessageConverter jackson
+						&& jackson.getObjectMapper().getFactory() instanceof CBORFactory);
+
+	}
+
+}
@@ -0,0 +1,64 @@
+package es.common.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that counts the bytes read or skipped
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+class CountingInputStream extends FilterInputStream {
+
+	private long count;
+
+	CountingInputStream(InputStream in) {
+		super(in);
+	}
+
+	@Override
+	public int read() throws IOException {
+
+		int read = super.read();
+
+		if (read >= 0)
+			count++;
+
+		return read;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+
+		int read = super.read(buffer, offset, length);
+
+		if (read > 0)
+			count += read;
+
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+
+		long skipped = super.skip(n);
+
+		if (skipped > 0)
+			count += skipped;
+
+		return skipped;
+	}
+
+	/**
+	 * Returns the number of bytes read or skipped
+	 *
+	 * @return the byte count
+	 */
+	long getCount() {
+
+		return count;
+	}
+
+}
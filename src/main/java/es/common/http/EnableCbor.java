@@ -0,0 +1,30 @@
+package es.common.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.context.annotation.Import;
+
+/**
+ * Enables the CBOR ({@code application/cbor}) responses and requests of the controllers of the
+ * application, configured by {@link CborWebMvcConfigurer}. For example:
+ *
+ * <pre>
+ * &#64;SpringBootApplication
+ * &#64;EnableCbor
+ * public class Application {
+ * }
+ * </pre>
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Documented
+@Import(CborWebMvcConfigurer.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EnableCbor {
+}
@@ -0,0 +1,204 @@
+package es.common.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Interceptor that compresses with gzip the request bodies bigger than a threshold, asks for
+ * compressed responses and decompresses them while they are read, so the streamed responses
+ * are never held whole in memory.<br><br>
+ *
+ * The servers must accept compressed bodies, for example registering the
+ * {@link GzipRequestBodyFilter}. The bytes saved on both directions are counted.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class GzipInterceptor implements ClientHttpRequestInterceptor {
+
+	// #############
+	// # Constants #
+	// #############
+
+	private static final String GZIP = "gzip";
+
+	/**
+	 * Default minimum size of the bodies to be compressed, smaller ones do not pay off
+	 */
+	public static final int DEFAULT_THRESHOLD = 2048;
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final int threshold;
+
+	private final LongAdder compressedRequests = new LongAdder();
+
+	private final LongAdder compressedResponses = new LongAdder();
+
+	private final LongAdder requestBytesSaved = new LongAdder();
+
+	private final LongAdder responseBytesSaved = new LongAdder();
+
+	// ################
+	// # Constructors #
+	// ################
+
+	public GzipInterceptor() {
+
+		this(DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * @param threshold minimum size, in bytes, of the bodies to be compressed
+	 */
+	public GzipInterceptor(int threshold) {
+
+		this.threshold = threshold;
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+
+		HttpHeaders headers = request.getHeaders();
+
+		if (!headers.containsKey(HttpHeaders.ACCEPT_ENCODING))
+			headers.set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+
+		byte[] sent = body;
+
+		if (body.length >= threshold && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+
+			sent = compress(body);
+			headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+			headers.setContentLength(sent.length);
+
+			compressedRequests.increment();
+			requestBytesSaved.add(body.length - (long) sent.length);
+		}
+
+		ClientHttpResponse response = execution.execute(request, sent);
+
+		if (!GZIP.equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)))
+			return response;
+
+		compressedResponses.increment();
+		return new GunzipResponse(response);
+	}
+
+	public long getCompressedRequests() {
+
+		return compressedRequests.sum();
+	}
+
+	public long getCompressedResponses() {
+
+		return compressedResponses.sum();
+	}
+
+	public long getRequestBytesSaved() {
+
+		return requestBytesSaved.sum();
+	}
+
+	/**
+	 * Returns the bytes saved by the responses already read and closed
+	 */
+	public long getResponseBytesSaved() {
+
+		return responseBytesSaved.sum();
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private static byte[] compress(byte[] body) throws IOException {
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+
+		try (GZIPOutputStream gzip = new GZIPOutputStream(output, 8192)) {
+			gzip.write(body);
+		}
+
+		return output.toByteArray();
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Response whose body is decompressed while it is read
+	 */
+	private class GunzipResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+		private final HttpHeaders headers;
+		private CountingInputStream compressed;
+		private CountingInputStream decompressed;
+
+		GunzipResponse(ClientHttpResponse response) {
+
+			this.response = response;
+			this.headers = new HttpHeaders();
+			this.headers.putAll(response.getHeaders());
+			this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+			this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+		}
+
+		@Override
+		public HttpStatusCode getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+
+			if (decompressed == null) {
+
+				compressed = new CountingInputStream(response.getBody());
+				decompressed = new CountingInputStream(new GZIPInputStream(compressed, 8192));
+			}
+
+			return decompressed;
+		}
+
+		@Override
+		public void close() {
+
+			if (decompressed != null)
+				responseBytesSaved.add(decompressed.getCount() - compressed.getCount());
+
+			response.close();
+		}
+	}
+
+}
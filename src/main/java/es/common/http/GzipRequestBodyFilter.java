@@ -0,0 +1,311 @@
+package es.common.http;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter that decompresses the request bodies sent with {@code Content-Encoding: gzip}, for
+ * example by the {@link GzipInterceptor}, so the controllers read them as usual.<br><br>
+ *
+ * The decompressed size is limited, to reject the bodies that would take too much memory
+ * once decompressed. The bodies that exceed it are rejected with a 413 status, and the ones
+ * that are not valid gzip with a 400 status: the reading fails with a
+ * {@link ResponseStatusException}, which Spring MVC turns into its status, and which this
+ * filter also turns into its status if it reaches it before the response is committed. The
+ * asynchronous reads are delegated to the original body.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class GzipRequestBodyFilter extends OncePerRequestFilter {
+
+	// #############
+	// # Constants #
+	// #############
+
+	/**
+	 * Default maximum size of a decompressed body
+	 */
+	public static final long DEFAULT_MAX_INFLATED_BYTES = 64L * 1024 * 1024;
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final long maxInflatedBytes;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	public GzipRequestBodyFilter() {
+
+		this(DEFAULT_MAX_INFLATED_BYTES);
+	}
+
+	/**
+	 * @param maxInflatedBytes maximum size of a decompressed body
+	 */
+	public GzipRequestBodyFilter(long maxInflatedBytes) {
+
+		this.maxInflatedBytes = maxInflatedBytes;
+	}
+
+	// #####################
+	// # Protected methods #
+	// #####################
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		if (!"gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		try {
+
+			filterChain.doFilter(new GunzipRequest(request), response);
+
+		} catch (IOException | ServletException | RuntimeException e) {
+
+			InvalidBodyException invalidBody = findInvalidBody(e);
+
+			if (invalidBody == null || response.isCommitted())
+				throw e;
+
+			response.sendError(invalidBody.getStatusCode().value(), invalidBody.getReason());
+		}
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private static InvalidBodyException findInvalidBody(Throwable e) {
+
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+
+			if (cause instanceof InvalidBodyException)
+				return (InvalidBodyException) cause;
+		}
+
+		return null;
+	}
+
+	private static InvalidBodyException corrupted(IOException e) {
+
+		return new InvalidBodyException(HttpStatus.BAD_REQUEST, "Request body is not valid gzip", e);
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Request whose body is decompressed while it is read
+	 */
+	private class GunzipRequest extends HttpServletRequestWrapper {
+
+		private ServletInputStream body;
+
+		GunzipRequest(HttpServletRequest request) {
+			super(request);
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+
+			if (body == null) {
+
+				ServletInputStream source = super.getInputStream();
+
+				try {
+					body = new GunzipInputStream(source, new GZIPInputStream(source, 8192));
+				} catch (ZipException | EOFException e) {
+					throw corrupted(e);
+				}
+			}
+
+			return body;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+
+			Charset charset = (getCharacterEncoding() != null)
+					? Charset.forName(getCharacterEncoding())
+					: StandardCharsets.UTF_8;
+
+			return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+		}
+
+		@Override
+		public int getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return -1L;
+		}
+
+		@Override
+		public String getHeader(String name) {
+
+			if (isHidden(name))
+				return null;
+
+			return super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+
+			if (isHidden(name))
+				return Collections.emptyEnumeration();
+
+			return super.getHeaders(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+
+			return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+					.filter(name -> !isHidden(name))
+					.toList());
+		}
+
+		/**
+		 * The encoding and length headers no longer describe the body that is read
+		 */
+		private boolean isHidden(String name) {
+
+			return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+					|| HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+		}
+	}
+
+	/**
+	 * Servlet input stream over the decompressed body, limited to the maximum size
+	 */
+	private class GunzipInputStream extends ServletInputStream {
+
+		private final ServletInputStream source;
+		private final InputStream input;
+		private long read;
+		private boolean finished;
+
+		GunzipInputStream(ServletInputStream source, InputStream input) {
+			this.source = source;
+			this.input = input;
+		}
+
+		@Override
+		public int read() throws IOException {
+
+			int value;
+
+			try {
+				value = input.read();
+			} catch (ZipException | EOFException e) {
+				throw corrupted(e);
+			}
+
+			if (value < 0)
+				finished = true;
+			else
+				count(1);
+
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+
+			int count;
+
+			try {
+				count = input.read(buffer, offset, length);
+			} catch (ZipException | EOFException e) {
+				throw corrupted(e);
+			}
+
+			if (count < 0)
+				finished = true;
+			else
+				count(count);
+
+			return count;
+		}
+
+		@Override
+		public boolean isFinished() {
+			return finished;
+		}
+
+		/**
+		 * Once the original body is finished, the rest of the decompressed body is already buffered
+		 */
+		@Override
+		public boolean isReady() {
+			return source.isFinished() || source.isReady();
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			source.setReadListener(readListener);
+		}
+
+		@Override
+		public void close() throws IOException {
+			input.close();
+		}
+
+		private void count(int bytes) throws IOException {
+
+			read += bytes;
+
+			if (read > maxInflatedBytes)
+				throw new InvalidBodyException(HttpStatus.PAYLOAD_TOO_LARGE,
+						"Decompressed request body exceeds " + maxInflatedBytes + " bytes", null);
+		}
+	}
+
+	/**
+	 * Error of a compressed body that can not be read, with the status of its response
+	 */
+	private static class InvalidBodyException extends ResponseStatusException {
+
+		private static final long serialVersionUID = 1L;
+
+		InvalidBodyException(HttpStatus status, String reason, Throwable cause) {
+			super(status, reason, cause);
+		}
+	}
+
+}
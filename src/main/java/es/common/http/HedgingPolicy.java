@@ -0,0 +1,211 @@
+package es.common.http;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Policy of the hedged requests of {@link es.common.util.RestTemplateUtil#getHedged}: when the
+ * hedge is sent and how many hedges can be sent.<br><br>
+ *
+ * The delay before the hedge is the given percentile of the latencies of the last requests,
+ * within the minimum and maximum delay, so only the slowest requests are hedged. The budget
+ * gives every request a fraction of a hedge, and a hedge is only sent if there is a whole one
+ * available, so the extra load is capped at that fraction of the requests.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class HedgingPolicy {
+
+	// #############
+	// # Constants #
+	// #############
+
+	/**
+	 * Number of latencies recorded between two computations of the delay
+	 */
+	private static final int RECOMPUTE_EVERY = 64;
+
+	/**
+	 * Fractions of hedge are stored in thousandths
+	 */
+	private static final long SCALE = 1000L;
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final double percentile;
+
+	private final long minDelayNanos;
+
+	private final long maxDelayNanos;
+
+	private final long budgetPerRequest;
+
+	private final long maxBudget;
+
+	private final AtomicLongArray latencies;
+
+	private final AtomicLong recorded = new AtomicLong();
+
+	private final AtomicLong budget;
+
+	private final LongAdder requests = new LongAdder();
+
+	private final LongAdder hedges = new LongAdder();
+
+	private final LongAdder hedgeWins = new LongAdder();
+
+	private volatile long delayNanos;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * Policy that hedges the requests slower than the 95th percentile, up to 5% of the requests
+	 */
+	public HedgingPolicy() {
+
+		this(0.95d, Duration.ofMillis(10), Duration.ofSeconds(2), 0.05d, 1024);
+	}
+
+	/**
+	 * @param percentile percentile (0 to 1) of the latencies used as the delay before the hedge
+	 * @param minDelay minimum delay before the hedge, also used until there are enough latencies
+	 * @param maxDelay maximum delay before the hedge
+	 * @param budgetRatio maximum fraction (0 to 1) of the requests that are hedged
+	 * @param windowSize number of the last latencies used to compute the percentile
+	 */
+	public HedgingPolicy(double percentile, Duration minDelay, Duration maxDelay, double budgetRatio,
+			int windowSize) {
+
+		if (percentile <= 0d || percentile >= 1d || budgetRatio < 0d || budgetRatio > 1d || windowSize < 1)
+			throw new IllegalArgumentException("Invalid hedging policy");
+
+		this.percentile = percentile;
+		this.minDelayNanos = minDelay.toNanos();
+		this.maxDelayNanos = Math.max(minDelayNanos, maxDelay.toNanos());
+		this.budgetPerRequest = Math.round(budgetRatio * SCALE);
+		this.maxBudget = 10L * SCALE;
+		this.latencies = new AtomicLongArray(windowSize);
+		this.budget = new AtomicLong(SCALE);
+		this.delayNanos = minDelayNanos;
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Registers a new request, which adds its fraction of hedge to the budget
+	 */
+	public void onRequest() {
+
+		requests.increment();
+		budget.getAndUpdate(current -> Math.min(maxBudget, current + budgetPerRequest));
+	}
+
+	/**
+	 * Takes a whole hedge from the budget
+	 *
+	 * @return true if the hedge can be sent
+	 */
+	public boolean tryAcquireHedge() {
+
+		long current;
+
+		do {
+
+			current = budget.get();
+
+			if (current < SCALE)
+				return false;
+
+		} while (!budget.compareAndSet(current, current - SCALE));
+
+		hedges.increment();
+		return true;
+	}
+
+	/**
+	 * Gives back a hedge taken with {@link #tryAcquireHedge()} that was finally not sent,
+	 * because its original request ended meanwhile
+	 */
+	public void releaseHedge() {
+
+		hedges.decrement();
+		budget.getAndUpdate(current -> Math.min(maxBudget, current + SCALE));
+	}
+
+	/**
+	 * Records the latency of a successful request
+	 *
+	 * @param nanos the latency, in nanoseconds
+	 */
+	public void record(long nanos) {
+
+		// A long counter, so it does not wrap to negative on the long running clients
+		long count = recorded.getAndIncrement();
+		latencies.set(Math.floorMod(count, latencies.length()), nanos);
+
+		if ((count + 1) % RECOMPUTE_EVERY == 0)
+			recomputeDelay((int) Math.min(count + 1, latencies.length()));
+	}
+
+	/**
+	 * Registers that the response of a hedge arrived before the one of its original request
+	 */
+	public void onHedgeWin() {
+
+		hedgeWins.increment();
+	}
+
+	/**
+	 * Returns the current delay before the hedge
+	 *
+	 * @return the delay
+	 */
+	public Duration getDelay() {
+
+		return Duration.ofNanos(delayNanos);
+	}
+
+	public long getRequests() {
+
+		return requests.sum();
+	}
+
+	public long getHedges() {
+
+		return hedges.sum();
+	}
+
+	public long getHedgeWins() {
+
+		return hedgeWins.sum();
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private void recomputeDelay(int samples) {
+
+		long[] sorted = new long[samples];
+
+		for (int i = 0; i < samples; i++)
+			sorted[i] = latencies.get(i);
+
+		Arrays.sort(sorted);
+
+		long value = sorted[Math.min(samples - 1, (int) Math.ceil(percentile * samples) - 1)];
+
+		delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, value));
+	}
+
+}
@@ -0,0 +1,60 @@
+package es.common.http;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Settings of the HTTP clients built by {@link PooledClientHttpRequestFactory}
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
+@Builder
+public class HttpClientSettings {
+
+	/**
+	 * Maximum time to establish a connection
+	 */
+	@Builder.Default
+	private final Duration connectTimeout = Duration.ofSeconds(2);
+
+	/**
+	 * Maximum time to wait for the response
+	 */
+	@Builder.Default
+	private final Duration readTimeout = Duration.ofSeconds(10);
+
+	/**
+	 * Maximum number of requests in progress to the same host (scheme, host and port)
+	 */
+	@Builder.Default
+	private final int maxRequestsPerHost = 50;
+
+	/**
+	 * Maximum time that a request waits for a free slot of its host
+	 */
+	@Builder.Default
+	private final Duration acquireTimeout = Duration.ofSeconds(2);
+
+	/**
+	 * Use HTTP/2 when the server supports it, HTTP/1.1 otherwise. It only applies to the
+	 * {@code https} URLs, negotiated with ALPN: the plain {@code http} URLs always use HTTP/1.1,
+	 * since many servers and proxies mishandle the h2c upgrade
+	 */
+	@Builder.Default
+	private final boolean http2 = true;
+
+	/**
+	 * Returns the default settings
+	 *
+	 * @return the default settings
+	 */
+	public static HttpClientSettings defaults() {
+
+		return HttpClientSettings.builder().build();
+	}
+
+}
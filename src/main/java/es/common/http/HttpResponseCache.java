@@ -0,0 +1,272 @@
+package es.common.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import jakarta.annotation.Nullable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Bounded in-memory cache of the responses of {@link es.common.util.RestTemplateUtil#getCached},
+ * least recently used first out.<br><br>
+ *
+ * The responses are stored already deserialized, by URL and response type, and they are kept
+ * as long as its {@code Cache-Control: max-age} allows. After that, the ones with an
+ * {@code ETag} are revalidated with {@code If-None-Match}, and on a 304 the cached object is
+ * returned again without reading any body. The responses marked as {@code no-store} are not
+ * stored. The cached objects are shared by every caller, so they must not be modified.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class HttpResponseCache {
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final int maxEntries;
+
+	private final Map<String, CachedResponse<?>> entries;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder revalidations = new LongAdder();
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param maxEntries maximum number of responses stored
+	 */
+	public HttpResponseCache(int maxEntries) {
+
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("Max entries must be positive");
+
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResponse<?>> eldest) {
+				return size() > HttpResponseCache.this.maxEntries;
+			}
+		};
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Builds the key of a response. Besides the URL and the type, the headers that usually
+	 * change the response (Accept and Authorization) are part of the key
+	 *
+	 * @param url the URL of the request
+	 * @param type the type of the response
+	 * @param headers the headers of the request
+	 * @return the key
+	 */
+	public static String key(String url, ParameterizedTypeReference<?> type, @Nullable HttpHeaders headers) {
+
+		StringBuilder key = new StringBuilder(url).append('|').append(type.getType().getTypeName());
+
+		if (headers != null) {
+
+			key.append('|').append(headers.getFirst(HttpHeaders.ACCEPT))
+					.append('|').append(headers.getFirst(HttpHeaders.AUTHORIZATION));
+		}
+
+		return key.toString();
+	}
+
+	/**
+	 * Returns the stored response of the given key
+	 *
+	 * @param key the key
+	 * @return the response, fresh or not, or null if it is not stored
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public synchronized <T> CachedResponse<T> get(String key) {
+
+		return (CachedResponse<T>) entries.get(key);
+	}
+
+	/**
+	 * Stores the given response, if its headers allow it
+	 *
+	 * @param key the key
+	 * @param response the response
+	 * @return the stored response, or null if it can not be stored
+	 */
+	@Nullable
+	public <T> CachedResponse<T> put(String key, ResponseEntity<T> response) {
+
+		HttpHeaders headers = response.getHeaders();
+		String cacheControl = headers.getCacheControl();
+		String etag = headers.getETag();
+
+		if (response.getBody() == null || contains(cacheControl, "no-store"))
+			return null;
+
+		long maxAge = contains(cacheControl, "no-cache") ? 0L : maxAgeMillis(cacheControl);
+
+		// Without freshness time or ETag it would never be used
+		if (maxAge <= 0L && etag == null)
+			return null;
+
+		CachedResponse<T> cached = new CachedResponse<>(response, etag, System.currentTimeMillis() + maxAge);
+
+		synchronized (this) {
+			entries.put(key, cached);
+		}
+
+		return cached;
+	}
+
+	/**
+	 * Renews the freshness time of a response revalidated by the server
+	 *
+	 * @param key the key
+	 * @param cached the stored response
+	 * @param headers the headers of the 304 response
+	 * @return the renewed response
+	 */
+	public <T> CachedResponse<T> renew(String key, CachedResponse<T> cached, HttpHeaders headers) {
+
+		long maxAge = contains(headers.getCacheControl(), "no-cache") ? 0L : maxAgeMillis(headers.getCacheControl());
+
+		CachedResponse<T> renewed = new CachedResponse<>(cached.getResponse(),
+				(headers.getETag() != null) ? headers.getETag() : cached.getEtag(),
+				System.currentTimeMillis() + maxAge);
+
+		synchronized (this) {
+			entries.put(key, renewed);
+		}
+
+		return renewed;
+	}
+
+	/**
+	 * Removes every stored response
+	 */
+	public synchronized void clear() {
+
+		entries.clear();
+	}
+
+	public synchronized int size() {
+
+		return entries.size();
+	}
+
+	public void onHit() {
+
+		hits.increment();
+	}
+
+	public void onMiss() {
+
+		misses.increment();
+	}
+
+	public void onRevalidation() {
+
+		revalidations.increment();
+	}
+
+	/**
+	 * Returns the number of responses returned from the cache without any request
+	 */
+	public long getHits() {
+
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of responses read from the server
+	 */
+	public long getMisses() {
+
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of responses returned from the cache after a 304
+	 */
+	public long getRevalidations() {
+
+		return revalidations.sum();
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private static boolean contains(@Nullable String cacheControl, String directive) {
+
+		return cacheControl != null && cacheControl.toLowerCase().contains(directive);
+	}
+
+	private static long maxAgeMillis(@Nullable String cacheControl) {
+
+		if (cacheControl == null)
+			return 0L;
+
+		for (String directive : cacheControl.split(",")) {
+
+			String trimmed = directive.trim().toLowerCase();
+
+			if (trimmed.startsWith("max-age=")) {
+
+				try {
+					return Long.parseLong(trimmed.substring(8).replace("\"", "")) * 1000L;
+				} catch (NumberFormatException e) {
+					return 0L;
+				}
+			}
+		}
+
+		return 0L;
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Response stored on the cache
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class CachedResponse<T> {
+
+		private final ResponseEntity<T> response;
+
+		@Nullable
+		private final String etag;
+
+		/**
+		 * Moment, in epoch milliseconds, until which the response can be used without revalidating it
+		 */
+		private final long freshUntil;
+
+		public boolean isFresh() {
+
+			return System.currentTimeMillis() < freshUntil;
+		}
+	}
+
+}
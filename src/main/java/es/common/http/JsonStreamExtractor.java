@@ -0,0 +1,138 @@
+package es.common.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseExtractor;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Response extractor that reads a JSON collection element by element while it is downloaded,
+ * and passes every element to a consumer, so the whole collection is never held in memory.<br><br>
+ *
+ * The body may be a plain array or a HAL document, whose elements are the first array found
+ * inside {@code _embedded}. Any other content is skipped.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class JsonStreamExtractor<T> implements ResponseExtractor<Long> {
+
+	// #############
+	// # Constants #
+	// #############
+
+	private static final String EMBEDDED = "_embedded";
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final ObjectMapper mapper;
+
+	private final ObjectReader reader;
+
+	private final Consumer<? super T> consumer;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param mapper the mapper used to read the elements
+	 * @param elementType the type of the elements
+	 * @param consumer the consumer of the elements, called on the order of the collection
+	 */
+	public JsonStreamExtractor(ObjectMapper mapper, JavaType elementType, Consumer<? super T> consumer) {
+
+		this.mapper = mapper;
+		this.reader = mapper.readerFor(elementType);
+		this.consumer = consumer;
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Reads the response
+	 *
+	 * @return the number of elements read
+	 */
+	@Override
+	public Long extractData(ClientHttpResponse response) throws IOException {
+
+		InputStream body = response.getBody();
+
+		try (JsonParser parser = mapper.getFactory().createParser(body)) {
+
+			JsonToken token = parser.nextToken();
+
+			if (token == JsonToken.START_ARRAY)
+				return readArray(parser);
+
+			if (token == JsonToken.START_OBJECT && moveToEmbeddedArray(parser))
+				return readArray(parser);
+
+			return 0L;
+		}
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	/**
+	 * Reads the elements of the array where the parser is placed
+	 */
+	private long readArray(JsonParser parser) throws IOException {
+
+		long count = 0L;
+
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+
+			T element = reader.readValue(parser);
+			consumer.accept(element);
+			count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Places the parser on the first array inside the {@code _embedded} field of the current object
+	 */
+	private static boolean moveToEmbeddedArray(JsonParser parser) throws IOException {
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+
+			if (EMBEDDED.equals(field) && value == JsonToken.START_OBJECT) {
+
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+					if (parser.nextToken() == JsonToken.START_ARRAY)
+						return true;
+
+					parser.skipChildren();
+				}
+
+				return false;
+			}
+
+			parser.skipChildren();
+		}
+
+		return false;
+	}
+
+}
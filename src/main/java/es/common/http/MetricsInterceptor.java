@@ -0,0 +1,318 @@
+package es.common.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Interceptor that records the metrics of the outbound calls:
+ * <ul>
+ * <li>{@code http.client.calls}: latency histogram until the response headers arrive</li>
+ * <li>{@code http.client.request.size} and {@code http.client.response.size}: bytes sent and
+ * read, the response ones recorded when the response is closed</li>
+ * <li>{@code http.client.retries}: retries of the {@link ResilienceInterceptor}, if bound, with
+ * the tags of the calls but the status</li>
+ * <li>{@code http.client.in.flight}: requests in progress to every host of the
+ * {@link PooledClientHttpRequestFactory}, if bound</li>
+ * </ul>
+ *
+ * The calls are tagged by host, method, URI template and status class. The URI templates are
+ * given by the caller (for example {@code /users/{id}/orders}) and matched against the path of
+ * every call, the most specific one first. The paths that do not match any template are tagged
+ * as {@value #UNKNOWN_URI}, never with the raw path, so the number of series stays bounded.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class MetricsInterceptor implements ClientHttpRequestInterceptor {
+
+	// #############
+	// # Constants #
+	// #############
+
+	public static final String CALLS = "http.client.calls";
+	public static final String REQUEST_SIZE = "http.client.request.size";
+	public static final String RESPONSE_SIZE = "http.client.response.size";
+	public static final String RETRIES = "http.client.retries";
+	public static final String IN_FLIGHT = "http.client.in.flight";
+
+	/**
+	 * URI tag of the calls whose path does not match any template
+	 */
+	public static final String UNKNOWN_URI = "UNKNOWN";
+
+	private static final String IO_ERROR = "IO_ERROR";
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final MeterRegistry registry;
+
+	/**
+	 * URI templates, the most specific first. Replaced as a whole when a template is added
+	 */
+	private volatile List<PathPattern> uriTemplates = List.of();
+
+	private final Set<String> boundHosts = ConcurrentHashMap.newKeySet();
+
+	private PooledClientHttpRequestFactory requestFactory;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param registry the registry of the metrics
+	 */
+	public MetricsInterceptor(MeterRegistry registry) {
+
+		this(registry, List.of());
+	}
+
+	/**
+	 * @param registry the registry of the metrics
+	 * @param uriTemplates the URI templates of the paths called, such as {@code /users/{id}}
+	 */
+	public MetricsInterceptor(MeterRegistry registry, Collection<String> uriTemplates) {
+
+		this.registry = registry;
+		uriTemplates.forEach(this::addUriTemplate);
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+
+		URI uri = request.getURI();
+		Tags tags = tags(request);
+
+		bindHost(uri);
+
+		DistributionSummary.builder(REQUEST_SIZE).baseUnit("bytes").tags(tags).register(registry).record(body.length);
+
+		long start = System.nanoTime();
+		ClientHttpResponse response;
+
+		try {
+
+			response = execution.execute(request, body);
+
+		} catch (IOException | RuntimeException e) {
+
+			callTimer(tags, IO_ERROR).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			throw e;
+		}
+
+		String status = response.getStatusCode().value() / 100 + "xx";
+		callTimer(tags, status).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		return new MeteredResponse(response, DistributionSummary.builder(RESPONSE_SIZE).baseUnit("bytes")
+				.tags(tags).tag("status", status).register(registry));
+	}
+
+	/**
+	 * Publishes the retries of the given interceptor, by host, method and URI template. It must
+	 * be bound only once, otherwise every retry is counted once per binding
+	 *
+	 * @param resilienceInterceptor the interceptor of the retries
+	 * @return this interceptor
+	 */
+	public MetricsInterceptor bindTo(ResilienceInterceptor resilienceInterceptor) {
+
+		resilienceInterceptor.addRetryListener(request -> Counter.builder(RETRIES)
+				.description("Retries of the outbound calls")
+				.tags(tags(request))
+				.register(registry)
+				.increment());
+
+		return this;
+	}
+
+	/**
+	 * Publishes the requests in progress of the given request factory, by host
+	 *
+	 * @param requestFactory the request factory
+	 * @return this interceptor
+	 */
+	public MetricsInterceptor bindTo(PooledClientHttpRequestFactory requestFactory) {
+
+		this.requestFactory = requestFactory;
+
+		Gauge.builder(IN_FLIGHT + ".limit", requestFactory, f -> f.getSettings().getMaxRequestsPerHost())
+				.description("Maximum requests in progress to a host")
+				.register(registry);
+
+		return this;
+	}
+
+	/**
+	 * Adds a URI template, whose variables match a single path segment
+	 *
+	 * @param uriTemplate the template, such as {@code /users/{id}}
+	 * @return this interceptor
+	 */
+	public synchronized MetricsInterceptor addUriTemplate(String uriTemplate) {
+
+		List<PathPattern> templates = new ArrayList<>(uriTemplates);
+		templates.add(PathPatternParser.defaultInstance.parse(uriTemplate));
+		templates.sort(PathPattern.SPECIFICITY_COMPARATOR);
+
+		uriTemplates = List.copyOf(templates);
+
+		return this;
+	}
+
+	/**
+	 * Returns the URI template used on the metrics of the given URI
+	 *
+	 * @param uri the URI
+	 * @return the most specific template that matches the path, or {@value #UNKNOWN_URI}
+	 */
+	public String uriTemplate(URI uri) {
+
+		List<PathPattern> templates = uriTemplates;
+
+		if (templates.isEmpty())
+			return UNKNOWN_URI;
+
+		PathContainer path = PathContainer.parsePath(
+				(uri.getRawPath() == null || uri.getRawPath().isEmpty()) ? "/" : uri.getRawPath());
+
+		for (PathPattern template : templates) {
+
+			if (template.matches(path))
+				return template.getPatternString();
+		}
+
+		return UNKNOWN_URI;
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private Tags tags(HttpRequest request) {
+
+		URI uri = request.getURI();
+
+		return Tags.of("host", String.valueOf(uri.getHost()), "method", request.getMethod().name(),
+				"uri", uriTemplate(uri));
+	}
+
+	private Timer callTimer(Tags tags, String status) {
+
+		return Timer.builder(CALLS)
+				.description("Latency of the outbound calls")
+				.tags(tags)
+				.tag("status", status)
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	/**
+	 * Registers the gauge of the requests in progress of the host, the first time it is called
+	 */
+	private void bindHost(URI uri) {
+
+		PooledClientHttpRequestFactory factory = requestFactory;
+
+		if (factory == null)
+			return;
+
+		String host = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+
+		if (boundHosts.add(host)) {
+
+			Gauge.builder(IN_FLIGHT, factory, f -> f.getInFlightRequests().getOrDefault(host, 0))
+					.description("Requests in progress to the host")
+					.tag("host", String.valueOf(uri.getHost()))
+					.tag("port", String.valueOf(uri.getPort()))
+					.register(registry);
+		}
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Response that records the bytes read when it is closed
+	 */
+	private static class MeteredResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+		private final DistributionSummary size;
+		private CountingInputStream body;
+		private boolean closed;
+
+		MeteredResponse(ClientHttpResponse response, DistributionSummary size) {
+			this.response = response;
+			this.size = size;
+		}
+
+		@Override
+		public HttpStatusCode getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+
+			if (body == null)
+				body = new CountingInputStream(response.getBody());
+
+			return body;
+		}
+
+		@Override
+		public void close() {
+
+			if (!closed) {
+
+				closed = true;
+				size.record((body != null) ? body.getCount() : 0L);
+			}
+
+			response.close();
+		}
+	}
+
+}
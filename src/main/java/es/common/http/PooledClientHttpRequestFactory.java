@@ -0,0 +1,257 @@
+package es.common.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+/**
+ * Request factory backed by the JDK {@link HttpClient}, which keeps the connections alive and
+ * reuses them between requests, and negotiates HTTP/2 when the server supports it. HTTP/2 is
+ * only used for the {@code https} URLs: the plain {@code http} ones go through an HTTP/1.1
+ * client, so no h2c upgrade is ever attempted.<br><br>
+ *
+ * On top of the client, the number of requests in progress to the same host is limited, so a
+ * slow host can not take all the connections. A request holds its slot until its response is
+ * closed. The keep-alive time of the idle connections is set with the JDK system property
+ * {@code jdk.httpclient.keepalive.timeout}.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class PooledClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+	private final HttpClientSettings settings;
+
+	private final HttpClient httpClient;
+
+	private final JdkClientHttpRequestFactory delegate;
+
+	/**
+	 * Factory of the plain http requests, over HTTP/1.1
+	 */
+	private final JdkClientHttpRequestFactory plainDelegate;
+
+	private final Map<String, Semaphore> hostSlots = new ConcurrentHashMap<>();
+
+	// ################
+	// # Constructors #
+	// ################
+
+	public PooledClientHttpRequestFactory() {
+
+		this(HttpClientSettings.defaults());
+	}
+
+	public PooledClientHttpRequestFactory(HttpClientSettings settings) {
+
+		this.settings = settings;
+		this.httpClient = HttpClient.newBuilder()
+				.version(settings.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+				.connectTimeout(settings.getConnectTimeout())
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.build();
+
+		this.delegate = new JdkClientHttpRequestFactory(httpClient);
+		this.delegate.setReadTimeout(settings.getReadTimeout());
+
+		if (settings.isHttp2()) {
+
+			this.plainDelegate = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.connectTimeout(settings.getConnectTimeout())
+					.followRedirects(HttpClient.Redirect.NEVER)
+					.build());
+			this.plainDelegate.setReadTimeout(settings.getReadTimeout());
+
+		} else {
+
+			this.plainDelegate = delegate;
+		}
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+
+		JdkClientHttpRequestFactory factory = "http".equalsIgnoreCase(uri.getScheme()) ? plainDelegate : delegate;
+
+		return new LimitedRequest(factory.createRequest(uri, httpMethod), hostKey(uri));
+	}
+
+	/**
+	 * Returns the number of requests in progress to every host
+	 *
+	 * @return the requests in progress, indexed by host (scheme, host and port)
+	 */
+	public Map<String, Integer> getInFlightRequests() {
+
+		Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+
+		hostSlots.forEach((host, slots) ->
+				inFlight.put(host, settings.getMaxRequestsPerHost() - slots.availablePermits()));
+
+		return Collections.unmodifiableMap(inFlight);
+	}
+
+	public HttpClientSettings getSettings() {
+
+		return settings;
+	}
+
+	/**
+	 * Returns the client of the {@code https} requests
+	 *
+	 * @return the HTTP client
+	 */
+	public HttpClient getHttpClient() {
+
+		return httpClient;
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private static String hostKey(URI uri) {
+
+		return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+	}
+
+	private Semaphore acquire(String host) throws IOException {
+
+		Semaphore slots = hostSlots.computeIfAbsent(host, h -> new Semaphore(settings.getMaxRequestsPerHost()));
+
+		try {
+
+			if (!slots.tryAcquire(settings.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS))
+				throw new IOException("Too many requests in progress to " + host);
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a request slot of " + host, e);
+		}
+
+		return slots;
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Request that takes a slot of its host while it is in progress
+	 */
+	private class LimitedRequest implements ClientHttpRequest {
+
+		private final ClientHttpRequest request;
+		private final String host;
+
+		LimitedRequest(ClientHttpRequest request, String host) {
+			this.request = request;
+			this.host = host;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return request.getMethod();
+		}
+
+		@Override
+		public URI getURI() {
+			return request.getURI();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return request.getHeaders();
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			return request.getBody();
+		}
+
+		@Override
+		public ClientHttpResponse execute() throws IOException {
+
+			Semaphore slots = acquire(host);
+
+			try {
+
+				return new SlotResponse(request.execute(), slots);
+
+			} catch (IOException | RuntimeException e) {
+
+				slots.release();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Response that frees the slot of its host when it is closed
+	 */
+	private static class SlotResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+		private final Semaphore slots;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		SlotResponse(ClientHttpResponse response, Semaphore slots) {
+			this.response = response;
+			this.slots = slots;
+		}
+
+		@Override
+		public HttpStatusCode getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return response.getBody();
+		}
+
+		@Override
+		public void close() {
+
+			try {
+				response.close();
+			} finally {
+				if (released.compareAndSet(false, true))
+					slots.release();
+			}
+		}
+	}
+
+}
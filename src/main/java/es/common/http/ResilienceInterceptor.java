@@ -0,0 +1,462 @@
+package es.common.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.apachecommons.CommonsLog;
+
+/**
+ * Interceptor that applies, per host and method, three resilience policies:
+ * <ul>
+ * <li>Retries of the idempotent requests that fail with an I/O error or with a 429, 502, 503 or
+ * 504 status, waiting a random (jittered) and exponentially growing time between attempts</li>
+ * <li>A circuit breaker, which opens when the failure rate of the last calls is too high and
+ * rejects the calls without sending them until a probe call succeeds. While the probe is in
+ * progress, the results of the calls sent before the circuit opened are ignored</li>
+ * <li>A bulkhead, which limits the number of calls in progress, so a slow host can not hold
+ * all the threads of the application. A call is in progress until its response is closed, so
+ * the reading of the body is also limited</li>
+ * </ul>
+ *
+ * The rejected calls fail with a {@link CallRejectedException}. The retries send the request
+ * again from this interceptor, so it must be the last one of the rest template.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@CommonsLog
+public class ResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+	// #############
+	// # Constants #
+	// #############
+
+	private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(
+			HttpMethod.GET, HttpMethod.HEAD, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.OPTIONS, HttpMethod.TRACE);
+
+	private static final Set<Integer> RETRYABLE_STATUS = Set.of(429, 502, 503, 504);
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final ResilienceSettings settings;
+
+	private final Map<String, Policy> policies = new ConcurrentHashMap<>();
+
+	private final List<Consumer<HttpRequest>> retryListeners = new CopyOnWriteArrayList<>();
+
+	// ################
+	// # Constructors #
+	// ################
+
+	public ResilienceInterceptor() {
+
+		this(ResilienceSettings.defaults());
+	}
+
+	public ResilienceInterceptor(ResilienceSettings settings) {
+
+		this.settings = settings;
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+
+		String key = policyKey(request.getURI(), request.getMethod());
+		Policy policy = policies.computeIfAbsent(key, k -> new Policy());
+
+		int maxAttempts = IDEMPOTENT_METHODS.contains(request.getMethod()) ? settings.getMaxAttempts() : 1;
+
+		if (!policy.bulkhead.tryAcquire()) {
+
+			policy.bulkheadRejections.increment();
+			throw new CallRejectedException("Too many calls in progress to " + key);
+		}
+
+		// The permit is handed to the response, which releases it when it is closed
+		boolean handedOff = false;
+
+		try {
+
+			for (int attempt = 1;; attempt++) {
+
+				Pass pass = policy.circuit.tryPass();
+
+				if (pass == Pass.REJECTED) {
+
+					policy.circuitRejections.increment();
+					throw new CallRejectedException("Circuit open for " + key);
+				}
+
+				policy.calls.increment();
+				ClientHttpResponse response = null;
+				boolean success = false;
+
+				try {
+
+					response = execution.execute(request, body);
+					success = response.getStatusCode().value() < 500;
+
+				} catch (IOException | RuntimeException e) {
+
+					policy.failures.increment();
+
+					if (response != null) {
+						response.close();
+						response = null;
+					}
+
+					if (!(e instanceof IOException) || attempt >= maxAttempts)
+						throw e;
+
+					log.info("Retrying " + key + " after: " + e.getMessage());
+
+				} finally {
+
+					// Also reached on errors, so a probe never stays unresolved
+					policy.circuit.onResult(pass, success);
+				}
+
+				if (response != null) {
+
+					int status = response.getStatusCode().value();
+
+					if (!success)
+						policy.failures.increment();
+
+					if (!RETRYABLE_STATUS.contains(status) || attempt >= maxAttempts) {
+
+						handedOff = true;
+						return new PermitResponse(response, policy.bulkhead);
+					}
+
+					response.close();
+					log.info("Retrying " + key + " after status " + status);
+				}
+
+				backoff(policy, request, attempt);
+			}
+
+		} finally {
+
+			if (!handedOff)
+				policy.bulkhead.release();
+		}
+	}
+
+	/**
+	 * Returns the state and the counters of the policies
+	 *
+	 * @return the stats, indexed by host (scheme, host and port) and method
+	 */
+	public Map<String, PolicyStats> getStats() {
+
+		Map<String, PolicyStats> stats = new HashMap<>(policies.size() * 2);
+
+		policies.forEach((key, policy) -> stats.put(key, policy.stats()));
+
+		return Collections.unmodifiableMap(stats);
+	}
+
+	/**
+	 * Returns the total number of retries, of every host and method
+	 *
+	 * @return the number of retries
+	 */
+	public long getRetries() {
+
+		long retries = 0L;
+
+		for (Policy policy : policies.values())
+			retries += policy.retries.sum();
+
+		return retries;
+	}
+
+	/**
+	 * Adds a listener that is called with the request before each of its retries
+	 *
+	 * @param listener the listener, which must not block
+	 */
+	public void addRetryListener(Consumer<HttpRequest> listener) {
+
+		retryListeners.add(listener);
+	}
+
+	/**
+	 * Closes every circuit and clears the counters
+	 */
+	public void reset() {
+
+		policies.clear();
+	}
+
+	public ResilienceSettings getSettings() {
+
+		return settings;
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private static String policyKey(URI uri, HttpMethod method) {
+
+		return method.name() + " " + uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+	}
+
+	/**
+	 * Waits a random time between 0 and the exponential delay of the attempt
+	 */
+	private void backoff(Policy policy, HttpRequest request, int attempt) throws InterruptedIOException {
+
+		policy.retries.increment();
+
+		for (Consumer<HttpRequest> listener : retryListeners) {
+
+			try {
+				listener.accept(request);
+			} catch (RuntimeException e) {
+				log.warn("Retry listener failed: " + e.getMessage());
+			}
+		}
+
+		long initial = settings.getInitialBackoff().toMillis();
+		long delay = Math.min(settings.getMaxBackoff().toMillis(), initial << Math.min(attempt - 1, 30));
+
+		try {
+
+			Thread.sleep(ThreadLocalRandom.current().nextLong(delay + 1));
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to retry");
+		}
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Outcome of asking the circuit to let a call pass
+	 */
+	private enum Pass {
+		REJECTED, CALL, PROBE
+	}
+
+	/**
+	 * State of the circuit
+	 */
+	public enum CircuitState {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	/**
+	 * Snapshot of the state and the counters of the policies of a host and method
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class PolicyStats {
+
+		private final CircuitState state;
+		private final long calls;
+		private final long failures;
+		private final long retries;
+		private final long circuitRejections;
+		private final long bulkheadRejections;
+		private final int inProgress;
+	}
+
+	/**
+	 * Policies and counters of a host and method
+	 */
+	private class Policy {
+
+		private final CircuitBreaker circuit = new CircuitBreaker();
+		private final Semaphore bulkhead = new Semaphore(settings.getMaxConcurrentCalls());
+
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder retries = new LongAdder();
+		private final LongAdder circuitRejections = new LongAdder();
+		private final LongAdder bulkheadRejections = new LongAdder();
+
+		PolicyStats stats() {
+
+			return new PolicyStats(circuit.getState(), calls.sum(), failures.sum(), retries.sum(),
+					circuitRejections.sum(), bulkheadRejections.sum(),
+					settings.getMaxConcurrentCalls() - bulkhead.availablePermits());
+		}
+	}
+
+	/**
+	 * Circuit breaker over the outcome of the last calls
+	 */
+	private class CircuitBreaker {
+
+		private final boolean[] outcomes = new boolean[settings.getSlidingWindowSize()];
+		private int recorded;
+		private int next;
+		private int failed;
+
+		private CircuitState state = CircuitState.CLOSED;
+		private long openUntil;
+		private boolean probing;
+
+		synchronized Pass tryPass() {
+
+			if (state == CircuitState.CLOSED)
+				return Pass.CALL;
+
+			if (state == CircuitState.OPEN && System.nanoTime() - openUntil >= 0) {
+
+				state = CircuitState.HALF_OPEN;
+				probing = false;
+			}
+
+			// Only one probe call at a time while the circuit is half open
+			if (state == CircuitState.HALF_OPEN && !probing) {
+
+				probing = true;
+				return Pass.PROBE;
+			}
+
+			return Pass.REJECTED;
+		}
+
+		synchronized void onResult(Pass pass, boolean success) {
+
+			if (pass == Pass.PROBE) {
+
+				probing = false;
+
+				if (state != CircuitState.HALF_OPEN)
+					return;
+
+				if (success) {
+
+					log.info("Circuit closed after a successful probe");
+					state = CircuitState.CLOSED;
+					recorded = next = failed = 0;
+
+				} else {
+					open();
+				}
+
+				return;
+			}
+
+			// Calls sent before the circuit opened do not count once it is open or half open
+			if (state != CircuitState.CLOSED)
+				return;
+
+			if (recorded == outcomes.length) {
+
+				if (!outcomes[next]) failed--;
+
+			} else {
+				recorded++;
+			}
+
+			outcomes[next] = success;
+			if (!success) failed++;
+			next = (next + 1) % outcomes.length;
+
+			if (recorded >= settings.getMinimumCalls()
+					&& failed >= settings.getFailureRateThreshold() * recorded)
+				open();
+		}
+
+		synchronized CircuitState getState() {
+
+			return state;
+		}
+
+		private void open() {
+
+			log.warn("Circuit opened, " + failed + " failed calls of the last " + recorded);
+			state = CircuitState.OPEN;
+			openUntil = System.nanoTime() + settings.getOpenDuration().toNanos();
+			probing = false;
+		}
+	}
+
+	/**
+	 * Response that releases the bulkhead permit of its call when it is closed
+	 */
+	private static class PermitResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+		private final Semaphore bulkhead;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		PermitResponse(ClientHttpResponse response, Semaphore bulkhead) {
+			this.response = response;
+			this.bulkhead = bulkhead;
+		}
+
+		@Override
+		public HttpStatusCode getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return response.getBody();
+		}
+
+		@Override
+		public void close() {
+
+			try {
+				response.close();
+			} finally {
+				if (released.compareAndSet(false, true))
+					bulkhead.release();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package es.common.http;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Settings of the policies applied by {@link ResilienceInterceptor}, shared by every host and
+ * method
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
+@Builder
+public class ResilienceSettings {
+
+	/**
+	 * Maximum number of attempts of the idempotent requests, the first one included
+	 */
+	@Builder.Default
+	private final int maxAttempts = 3;
+
+	/**
+	 * Base delay between attempts, doubled on every retry
+	 */
+	@Builder.Default
+	private final Duration initialBackoff = Duration.ofMillis(100);
+
+	/**
+	 * Maximum delay between attempts
+	 */
+	@Builder.Default
+	private final Duration maxBackoff = Duration.ofSeconds(2);
+
+	/**
+	 * Number of the last calls used to compute the failure rate of the circuit
+	 */
+	@Builder.Default
+	private final int slidingWindowSize = 20;
+
+	/**
+	 * Minimum number of calls on the window before the circuit can open
+	 */
+	@Builder.Default
+	private final int minimumCalls = 10;
+
+	/**
+	 * Failure rate (0 to 1) that opens the circuit
+	 */
+	@Builder.Default
+	private final double failureRateThreshold = 0.5d;
+
+	/**
+	 * Time that the circuit stays open before letting a probe call through
+	 */
+	@Builder.Default
+	private final Duration openDuration = Duration.ofSeconds(30);
+
+	/**
+	 * Maximum number of calls in progress to the same host and method
+	 */
+	@Builder.Default
+	private final int maxConcurrentCalls = 25;
+
+	/**
+	 * Returns the default settings
+	 *
+	 * @return the default settings
+	 */
+	public static ResilienceSettings defaults() {
+
+		return ResilienceSettings.builder().build();
+	}
+
+}
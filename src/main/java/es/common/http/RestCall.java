@@ -0,0 +1,55 @@
+package es.common.http;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import jakarta.annotation.Nullable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Description of an HTTP call to be sent through {@link es.common.util.RestTemplateUtil}
+ *
+ * @param <T> the response body type
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
+@AllArgsConstructor
+public class RestCall<T> {
+
+	private final HttpMethod method;
+
+	private final String url;
+
+	@Nullable
+	private final Object body;
+
+	private final ParameterizedTypeReference<T> type;
+
+	private final HttpHeaders headers;
+
+	public static <T> RestCall<T> get(String url, ParameterizedTypeReference<T> type, HttpHeaders headers) {
+
+		return new RestCall<>(HttpMethod.GET, url, null, type, headers);
+	}
+
+	public static <T> RestCall<T> post(String url, Object body, ParameterizedTypeReference<T> type, HttpHeaders headers) {
+
+		return new RestCall<>(HttpMethod.POST, url, body, type, headers);
+	}
+
+	public static <T> RestCall<T> put(String url, Object body, ParameterizedTypeReference<T> type, HttpHeaders headers) {
+
+		return new RestCall<>(HttpMethod.PUT, url, body, type, headers);
+	}
+
+	public static <T> RestCall<T> delete(String url, @Nullable Object body, ParameterizedTypeReference<T> type,
+			HttpHeaders headers) {
+
+		return new RestCall<>(HttpMethod.DELETE, url, body, type, headers);
+	}
+
+}
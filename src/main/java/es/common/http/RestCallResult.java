@@ -0,0 +1,39 @@
+package es.common.http;
+
+import org.springframework.http.ResponseEntity;
+
+import jakarta.annotation.Nullable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a {@link RestCall}: its response or the error that made it fail
+ *
+ * @param <T> the response body type
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
+@AllArgsConstructor
+public class RestCallResult<T> {
+
+	private final RestCall<T> call;
+
+	@Nullable
+	private final ResponseEntity<T> response;
+
+	@Nullable
+	private final Throwable error;
+
+	/**
+	 * Indicates if the call returned a response
+	 *
+	 * @return true if there is a response
+	 */
+	public boolean isSuccess() {
+
+		return error == null;
+	}
+
+}
@@ -0,0 +1,202 @@
+package es.common.http;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Coalesces the identical requests in progress at the same time: the first one (the leader) is
+ * sent and the rest (the followers) wait for its response, so a burst of identical requests
+ * only reaches the server once and is only deserialized once.<br><br>
+ *
+ * Two requests are identical when they have the same method, URL, response type and values of
+ * the relevant headers. The followers share the response object of the leader, so it must not
+ * be modified, and they fail with a {@link ResourceAccessException} if it does not arrive in
+ * time.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class SingleFlight {
+
+	// #############
+	// # Constants #
+	// #############
+
+	public static final List<String> DEFAULT_RELEVANT_HEADERS = List.of(
+			HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.AUTHORIZATION);
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final Duration followerTimeout;
+
+	private final List<String> relevantHeaders;
+
+	private final Map<String, CompletableFuture<ResponseEntity<?>>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder leaders = new LongAdder();
+
+	private final LongAdder followers = new LongAdder();
+
+	private final LongAdder followerTimeouts = new LongAdder();
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param followerTimeout maximum time that a follower waits for the response of its leader
+	 */
+	public SingleFlight(Duration followerTimeout) {
+
+		this(followerTimeout, DEFAULT_RELEVANT_HEADERS);
+	}
+
+	/**
+	 * @param followerTimeout maximum time that a follower waits for the response of its leader
+	 * @param relevantHeaders the headers that make two requests different
+	 */
+	public SingleFlight(Duration followerTimeout, List<String> relevantHeaders) {
+
+		this.followerTimeout = followerTimeout;
+		this.relevantHeaders = List.copyOf(relevantHeaders);
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Builds the key of a request
+	 *
+	 * @param method the method of the request
+	 * @param url the URL of the request
+	 * @param type the type of the response
+	 * @param headers the headers of the request
+	 * @return the key
+	 */
+	public String key(HttpMethod method, String url, ParameterizedTypeReference<?> type,
+			@Nullable HttpHeaders headers) {
+
+		StringBuilder key = new StringBuilder(method.name()).append(' ').append(url)
+				.append('|').append(type.getType().getTypeName());
+
+		for (String header : relevantHeaders)
+			key.append('|').append((headers != null) ? headers.get(header) : null);
+
+		return key.toString();
+	}
+
+	/**
+	 * Sends the request, or waits for the identical request already in progress
+	 *
+	 * @param key the key of the request
+	 * @param request the request to be sent if there is none in progress
+	 * @return the response
+	 * @throws ResourceAccessException if this is a follower and the response does not arrive in time
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> ResponseEntity<T> execute(String key, Supplier<ResponseEntity<T>> request) {
+
+		CompletableFuture<ResponseEntity<?>> created = new CompletableFuture<>();
+		CompletableFuture<ResponseEntity<?>> existing = inFlight.putIfAbsent(key, created);
+
+		if (existing != null)
+			return (ResponseEntity<T>) follow(key, existing);
+
+		leaders.increment();
+
+		try {
+
+			ResponseEntity<T> response = request.get();
+			created.complete(response);
+
+			return response;
+
+		} catch (Throwable e) {
+
+			// Errors included, so the followers never wait for a leader that has already ended
+			created.completeExceptionally(e);
+			throw e;
+
+		} finally {
+			inFlight.remove(key, created);
+		}
+	}
+
+	public long getLeaders() {
+
+		return leaders.sum();
+	}
+
+	public long getFollowers() {
+
+		return followers.sum();
+	}
+
+	public long getFollowerTimeouts() {
+
+		return followerTimeouts.sum();
+	}
+
+	/**
+	 * Returns the number of distinct requests in progress
+	 */
+	public int getInFlight() {
+
+		return inFlight.size();
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private ResponseEntity<?> follow(String key, CompletableFuture<ResponseEntity<?>> leader) {
+
+		followers.increment();
+
+		try {
+
+			return leader.get(followerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+
+		} catch (TimeoutException e) {
+
+			followerTimeouts.increment();
+			throw new ResourceAccessException("Timed out waiting for the coalesced request: " + key);
+
+		} catch (ExecutionException e) {
+
+			// The followers get the same error as the leader
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+
+			throw new RuntimeException(e.getCause());
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new ResourceAccessException("Interrupted waiting for the coalesced request: " + key);
+		}
+	}
+
+}
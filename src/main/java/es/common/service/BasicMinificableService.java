@@ -1,6 +1,7 @@
 package es.common.service;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -12,10 +13,10 @@ import org.springframework.hateoas.EntityModel;
 import org.springframework.stereotype.Service;
 
 import es.common.assembler.IAssemblerMinificable;
+import es.common.dto.MultiGetResultDto;
 import es.common.entity.AbstractCommonEntity;
+import es.common.exception.StacklessEntityNotFoundException;
 import es.common.util.JoinEntityMap;
-import es.common.util.MessageUtils;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.apachecommons.CommonsLog;
 
 /**
@@ -45,9 +46,11 @@ public abstract class BasicMinificableService<R extends JpaRepository<E, K>, E e
 	@Override
 	public Collection<EntityModel<M>> findAllMinified() {
 		
-		return repository.findAll().stream()
-			.map(entity -> assembler.buildMinDtoWithLinksFromEntity(entity, minifiedClazz))
-			.collect(Collectors.toList());
+		return readOnlyTransactionTemplate.execute(status -> {
+			return repository.findAll().stream()
+				.map(entity -> assembler.buildMinDtoWithLinksFromEntity(entity, minifiedClazz))
+				.collect(Collectors.toList());
+		});
 		
 	}
 
@@ -55,32 +58,47 @@ public abstract class BasicMinificableService<R extends JpaRepository<E, K>, E e
 	@Override
 	public EntityModel<M> findByIdMinified(K id) {
 		
-		Optional<E> optionEntity = repository.findById(id);
-		
-		// If entity was found, returns it
-		if (optionEntity.isPresent()) {
+		return readOnlyTransactionTemplate.execute(status -> {
+			
+			Optional<E> optionEntity = repository.findById(id);
+			
+			// If entity was found, returns it
+			if (optionEntity.isPresent()) {
+			
+				return assembler.buildMinDtoWithLinksFromEntity(
+						optionEntity.get(), minifiedClazz);
+			
+			// Otherwise, throw an EntityNotFoundException
+			} else {
+				
+				throw StacklessEntityNotFoundException.of(entityClazz);
+			}
+		});
 		
-			return assembler.buildMinDtoWithLinksFromEntity(
-					optionEntity.get(), minifiedClazz);
+	}
+
+	@Override
+	public MultiGetResultDto<M, K> findAllByIdsMinified(Collection<K> ids) {
 		
-		// Otherwise, throw an EntityNotFoundException
-		} else {
+		return readOnlyTransactionTemplate.execute(status -> {
 			
-			String entityDescription;
-				
-			try {
+			Map<K, E> entities = findAllByIdsEntities(ids);
+			
+			List<EntityModel<M>> found = new ArrayList<>(entities.size());
+			List<K> missingIds = new ArrayList<>();
+			
+			for (K id : ids) {
 				
-				entityDescription = (String) entityClazz.getField(DEFAULT_DESCTIPTOR).get(null);
-			} catch (Exception e) {
+				E entity = (id == null) ? null : entities.get(id);
 				
-				log.warn(String.format(DEFAULT_DESCRIPTOR_TEMPLATE, entityClazz.getCanonicalName()), e);
-				entityDescription = entityClazz.getCanonicalName();
+				if (entity == null)
+					missingIds.add(id);
+				else
+					found.add(assembler.buildMinDtoWithLinksFromEntity(entity, minifiedClazz));
 			}
 			
-			throw new EntityNotFoundException(
-					MessageUtils.entityNotFoundExceptionMessage(entityDescription));
-		}
-		
+			return new MultiGetResultDto<>(found, missingIds);
+		});
 	}
 
 	@Override
@@ -1,25 +1,35 @@
 package es.common.service;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
 import es.common.assembler.IAssembler;
+import es.common.dto.MultiGetResultDto;
+import es.common.dto.UpsertResultDto;
 import es.common.entity.AbstractCommonEntity;
 import es.common.entity.IdentifiableObject;
+import es.common.exception.StacklessEntityNotFoundException;
 import es.common.util.JoinEntityMap;
 import es.common.util.MessageUtils;
+import es.common.util.UtcClock;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.Data;
@@ -49,15 +59,39 @@ public abstract class BasicService<R extends JpaRepository<E, K>, E, K extends S
 	
 	protected TransactionTemplate transactionTemplate;
 	
+	protected TransactionTemplate readOnlyTransactionTemplate;
+	
+	/**
+	 * Indicates if the identifiers of the DTOs can be obtained, checked on startup
+	 */
+	private boolean dtoIdSupported = true;
+	
+	/**
+	 * Indicates if {@link #copyPreviousDefaultProperties(Object)} is overridden, checked on
+	 * startup, so the bulk updates keep calling it for every entity
+	 */
+	private boolean perEntityCopyOverridden = false;
+	
+	/**
+	 * Maximum number of identifiers sent on a single IN query
+	 */
+	protected static final int IN_QUERY_CHUNK_SIZE = 500;
+	
 	/**
 	 * Template to build a warning when the default descriptor is not found. <br>
 	 * Should be used with String.format() or similar to be builded with the entity class name
+	 * 
+	 * @deprecated the descriptors are resolved by {@link MessageUtils#entityDescriptor(Class)}
 	 */
+	@Deprecated(forRemoval = true)
 	protected final String DEFAULT_DESCRIPTOR_TEMPLATE = "The 'DEFAULT_DESCRIPTOR' field was not found on the given entity %s";
 	
 	/**
 	 * Default descriptor parameter name. Used to search the class descriptor
+	 * 
+	 * @deprecated misnamed, the descriptor field is {@link MessageUtils#DEFAULT_DESCRIPTOR_FIELD}
 	 */
+	@Deprecated(forRemoval = true)
 	protected final String DEFAULT_DESCTIPTOR = "DEFAULT_DESCRIPTION";
 	
 	
@@ -71,12 +105,27 @@ public abstract class BasicService<R extends JpaRepository<E, K>, E, K extends S
 	@PostConstruct
 	private void postConstruct() {
 		transactionTemplate = new TransactionTemplate(transactionManager);
+		
+		readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+		readOnlyTransactionTemplate.setReadOnly(true);
+		
+		// Resolves the descriptor on startup, instead of on the first missing entity
+		MessageUtils.entityDescriptor(entityClazz);
+		
+		dtoIdSupported = supportsDtoId();
+		
+		var copyPrevious = ReflectionUtils.findMethod(ClassUtils.getUserClass(this), "copyPreviousDefaultProperties", Object.class);
+		perEntityCopyOverridden = copyPrevious != null && copyPrevious.getDeclaringClass() != BasicService.class;
+		
+		if (!dtoIdSupported)
+			log.warn(String.format("The DTOs of %s do not implement %s and getDtoId is not overridden, "
+					+ "saveOrUpdateAll is not available", getClass().getSimpleName(), IdentifiableObject.class.getSimpleName()));
 	}
 	
 	@Override
 	public Collection<EntityModel<D>> findAll() {
 		
-		return transactionTemplate.execute(status -> {
+		return readOnlyTransactionTemplate.execute(status -> {
 			return assembler.buildDtosWithLinksFromEntities(repository.findAll());
 		});
 	}
@@ -88,11 +137,35 @@ public abstract class BasicService<R extends JpaRepository<E, K>, E, K extends S
 	@Override
 	public EntityModel<D> findById(K id) {
 		
-		return transactionTemplate.execute(status -> {
+		return readOnlyTransactionTemplate.execute(status -> {
 			return assembler.buildDtoWithLinksFromEntity(findByIdEntity(id));
 		});
 	}
 
+	@Override
+	public MultiGetResultDto<D, K> findAllByIds(Collection<K> ids) {
+		
+		return readOnlyTransactionTemplate.execute(status -> {
+			
+			Map<K, E> entities = findAllByIdsEntities(ids);
+			
+			List<EntityModel<D>> found = new ArrayList<>(entities.size());
+			List<K> missingIds = new ArrayList<>();
+			
+			for (K id : ids) {
+				
+				E entity = (id == null) ? null : entities.get(id);
+				
+				if (entity == null)
+					missingIds.add(id);
+				else
+					found.add(assembler.buildDtoWithLinksFromEntity(entity));
+			}
+			
+			return new MultiGetResultDto<>(found, missingIds);
+		});
+	}
+
 	@Override
 	public EntityModel<D> save(D dto) {
 		
@@ -149,7 +222,7 @@ public abstract class BasicService<R extends JpaRepository<E, K>, E, K extends S
 		
 		createDataValidation(dtos);
 		
-		return transactionTemplate.execute(status -> {
+		return UtcClock.inBatch(() -> transactionTemplate.execute(status -> {
 			
 			Map<D, JoinEntityMap> relatedEntitiesMap = getRelatedEntities(dtos);
 			
@@ -165,7 +238,7 @@ public abstract class BasicService<R extends JpaRepository<E, K>, E, K extends S
 					.map(entity -> assembler.buildDtoWithLinksFromEntity(entity))
 					.collect(Collectors.toList());
 	    	
-		});
+		}));
 	}
 
 	
@@ -174,7 +247,7 @@ public abstract class BasicService<R extends JpaRepository<E, K>, E, K extends S
 		
 		basicDataValidation(dtos);
 		
-		return transactionTemplate.execute(status -> {
+		return UtcClock.inBatch(() -> transactionTemplate.execute(status -> {
 		
 			Map<D, JoinEntityMap> relatedEntitiesMap = getRelatedEntities(dtos);
 			
@@ -186,14 +259,101 @@ public abstract class BasicService<R extends JpaRepository<E, K>, E, K extends S
 					.map(dto -> assembler.buildEntityFromDto(dto, relatedEntitiesMapNoNull.get(dto)))
 					.collect(Collectors.toList());
 			
-			entities.forEach(entity -> {
-				copyPreviousDefaultProperties(entity);
-			});
+			copyPreviousDefaultProperties(entities);
 			
 			return repository.saveAllAndFlush(entities).stream()
 					.map(entity -> assembler.buildDtoWithLinksFromEntity(entity))
 					.collect(Collectors.toList());
-		});
+		}));
+	}
+	
+	
+	/**
+	 * Saves the new DTOs and updates the existing ones in a single transaction. The existing rows
+	 * are found with a single set-based query over the identifiers of the DTOs, run on the
+	 * writing transaction so it reads the primary database, and then the new rows are validated
+	 * with {@link #createDataValidation(Collection)} and the existing ones with
+	 * {@link #basicDataValidation(Collection)}.<br><br>
+	 * 
+	 * The identifiers of the DTOs are obtained with {@link #getDtoId(Object)}
+	 * 
+	 * @param dtos the DTOs to be saved or updated
+	 * @return the DTOs with links of the saved entities, split into inserted and updated
+	 * @throws UnsupportedOperationException if the identifiers of the DTOs can not be obtained
+	 * @throws EntityNotFoundException if an existing entity is deleted before being updated
+	 */
+	public UpsertResultDto<D> saveOrUpdateAll(Collection<D> dtos) {
+		
+		if (!dtoIdSupported)
+			throw new UnsupportedOperationException(String.format(
+					"The DTOs of %s do not implement %s, getDtoId must be overridden", 
+					getClass().getSimpleName(), IdentifiableObject.class.getSimpleName()));
+		
+		return UtcClock.inBatch(() -> transactionTemplate.execute(status -> {
+			
+			// Single lookup on the writing transaction, so it is never sent to a lagging replica
+			Map<K, E> previousEntities = findAllByIdsEntities(dtos.stream()
+					.map(this::getDtoId)
+					.filter(Objects::nonNull)
+					.collect(Collectors.toList()));
+			
+			List<D> newDtos = new ArrayList<>();
+			List<D> existingDtos = new ArrayList<>();
+			
+			for (D dto : dtos) {
+				
+				K id = getDtoId(dto);
+				
+				if (id != null && previousEntities.containsKey(id))
+					existingDtos.add(dto);
+				else
+					newDtos.add(dto);
+			}
+			
+			if (!newDtos.isEmpty())
+				createDataValidation(newDtos);
+			
+			if (!existingDtos.isEmpty())
+				basicDataValidation(existingDtos);
+			
+			Map<D, JoinEntityMap> relatedEntitiesMap = getRelatedEntities(dtos);
+			
+			Map<D, JoinEntityMap> relatedEntitiesMapNoNull = (relatedEntitiesMap == null)
+					? new HashMap<>()
+					: relatedEntitiesMap;
+			
+			List<E> newEntities = newDtos.stream()
+					.map(dto -> assembler.buildEntityFromDto(dto, relatedEntitiesMapNoNull.get(dto)))
+					.collect(Collectors.toList());
+			
+			List<E> existingEntities = existingDtos.stream()
+					.map(dto -> assembler.buildEntityFromDto(dto, relatedEntitiesMapNoNull.get(dto)))
+					.collect(Collectors.toList());
+			
+			for (E entity : existingEntities) {
+				
+				if (perEntityCopyOverridden) {
+					
+					copyPreviousDefaultProperties(entity);
+					continue;
+				}
+				
+				K id = getEntityId(entity);
+				E prevEntity = previousEntities.get(id);
+				
+				copyPreviousDefaultProperties(entity, (prevEntity == null) ? findByIdEntity(id) : prevEntity);
+			}
+			
+			List<EntityModel<D>> inserted = repository.saveAll(newEntities).stream()
+					.map(entity -> assembler.buildDtoWithLinksFromEntity(entity))
+					.collect(Collectors.toList());
+			
+			List<EntityModel<D>> updated = repository.saveAllAndFlush(existingEntities).stream()
+					.map(entity -> assembler.buildDtoWithLinksFromEntity(entity))
+					.collect(Collectors.toList());
+			
+			return new UpsertResultDto<>(inserted, updated);
+		}));
 	}
 	
 	
@@ -226,25 +386,103 @@ public abstract class BasicService<R extends JpaRepository<E, K>, E, K extends S
 			// Otherwise, throw an EntityNotFoundException
 			} else {
 				
-				String entityDescription;
-					
-				try {
-					
-					entityDescription = (String) entityClazz.getField(DEFAULT_DESCTIPTOR).get(null);
-				} catch (Exception e) {
-					
-					log.warn(String.format(DEFAULT_DESCRIPTOR_TEMPLATE, entityClazz.getCanonicalName()), e);
-					entityDescription = entityClazz.getCanonicalName();
-				}
-				
-				throw new EntityNotFoundException(
-						MessageUtils.entityNotFoundExceptionMessage(entityDescription));
+				throw StacklessEntityNotFoundException.of(entityClazz);
 			}
 			
 		});
 	}
 	
 
+	/**
+	 * Loads the entities with the given identifiers, using IN queries of at most
+	 * {@link #IN_QUERY_CHUNK_SIZE} identifiers. Should be called inside a transaction
+	 * 
+	 * @param ids the identifiers of the entities, nulls and duplicates are ignored
+	 * @return the entities found, indexed by its identifier
+	 */
+	protected Map<K, E> findAllByIdsEntities(Collection<K> ids) {
+		
+		Map<K, E> entities = new HashMap<>();
+		List<K> chunk = new ArrayList<>(Math.min(ids.size(), IN_QUERY_CHUNK_SIZE));
+		
+		for (K id : new LinkedHashSet<>(ids)) {
+			
+			if (id == null)
+				continue;
+			
+			chunk.add(id);
+			
+			if (chunk.size() == IN_QUERY_CHUNK_SIZE) {
+				
+				repository.findAllById(chunk).forEach(entity -> entities.put(getEntityId(entity), entity));
+				chunk.clear();
+			}
+		}
+		
+		if (!chunk.isEmpty())
+			repository.findAllById(chunk).forEach(entity -> entities.put(getEntityId(entity), entity));
+		
+		return entities;
+	}
+	
+	/**
+	 * Returns the identifier of the given entity
+	 * 
+	 * @param entity the domain entity
+	 * @return the identifier of the entity
+	 * @throws IllegalStateException if the entity does not implement {@link IdentifiableObject}
+	 */
+	@SuppressWarnings("unchecked")
+	protected K getEntityId(E entity) {
+		
+		if (entity instanceof IdentifiableObject)
+			return ((IdentifiableObject<K>) entity).getId();
+		
+		throw new IllegalStateException(String.format("The entity %s does not implement %s", 
+				entityClazz.getCanonicalName(), IdentifiableObject.class.getSimpleName()));
+	}
+	
+
+	/**
+	 * Returns the identifier of the given DTO, or null if it is a new one. It is only used by
+	 * {@link #saveOrUpdateAll(Collection)}. By default the DTO must implement
+	 * {@link IdentifiableObject}, otherwise this method must be overridden. Services whose DTOs
+	 * do not support it are detected on startup, and a warning is logged
+	 * 
+	 * @param dto the data transfer object
+	 * @return the identifier of the DTO
+	 * @throws UnsupportedOperationException if the identifier can not be obtained
+	 */
+	@SuppressWarnings("unchecked")
+	protected K getDtoId(D dto) {
+		
+		if (dto instanceof IdentifiableObject)
+			return ((IdentifiableObject<K>) dto).getId();
+		
+		throw new UnsupportedOperationException(String.format(
+				"The DTO %s does not implement %s, getDtoId must be overridden", 
+				dto.getClass().getCanonicalName(), IdentifiableObject.class.getSimpleName()));
+	}
+	
+	
+	/**
+	 * Indicates if the identifiers of the DTOs can be obtained: {@link #getDtoId(Object)} is
+	 * overridden or the DTO class implements {@link IdentifiableObject}. When the DTO class can
+	 * not be resolved it is assumed to be supported, and checked on every call
+	 */
+	private boolean supportsDtoId() {
+		
+		var getDtoId = ReflectionUtils.findMethod(ClassUtils.getUserClass(this), "getDtoId", Object.class);
+		
+		if (getDtoId != null && getDtoId.getDeclaringClass() != BasicService.class)
+			return true;
+		
+		Class<?> dtoClazz = ResolvableType.forClass(BasicService.class, ClassUtils.getUserClass(this)).resolveGeneric(3);
+		
+		return dtoClazz == null || IdentifiableObject.class.isAssignableFrom(dtoClazz);
+	}
+	
+	
 	/**
 	 * Method that receives the post/put dto and from that, it will obtain all the related entities needed to 
 	 * build the domain object 
@@ -286,9 +524,54 @@ public abstract class BasicService<R extends JpaRepository<E, K>, E, K extends S
 			
 			E prevEntity = findByIdEntity((K) identifier.getId());
 			
-			assembler.copyCommonEntityDefaultProperties((AbstractCommonEntity<?>) prevEntity, (AbstractCommonEntity<?>) entity);
+			copyPreviousDefaultProperties(entity, prevEntity);
+			
+		}
+		
+	}
+	
+	/**
+	 * Copies the default properties of the stored version of every entity. The stored versions
+	 * are loaded together, instead of one query per entity, unless
+	 * {@link #copyPreviousDefaultProperties(Object)} is overridden, which is then called for
+	 * every entity
+	 * 
+	 * @param entities the entities to be updated
+	 * @throws EntityNotFoundException if any of the entities is not found
+	 */
+	protected void copyPreviousDefaultProperties(Collection<E> entities) {
+		
+		if (perEntityCopyOverridden ||
+				!AbstractCommonEntity.class.isAssignableFrom(entityClazz) ||
+				!IdentifiableObject.class.isAssignableFrom(entityClazz)) {
+			
+			entities.forEach(this::copyPreviousDefaultProperties);
+			return;
+		}
+		
+		Map<K, E> prevEntities = findAllByIdsEntities(entities.stream()
+				.map(this::getEntityId)
+				.collect(Collectors.toList()));
+		
+		for (E entity : entities) {
+			
+			K id = getEntityId(entity);
+			E prevEntity = (id == null) ? null : prevEntities.get(id);
 			
+			copyPreviousDefaultProperties(entity, (prevEntity == null) ? findByIdEntity(id) : prevEntity);
 		}
+	}
+	
+	/**
+	 * Copies the default properties of the stored version of the entity
+	 * 
+	 * @param entity the entity to be updated
+	 * @param prevEntity the stored version of the entity
+	 */
+	protected void copyPreviousDefaultProperties(E entity, E prevEntity) {
+		
+		if (entity instanceof AbstractCommonEntity && prevEntity instanceof AbstractCommonEntity)
+			assembler.copyCommonEntityDefaultProperties((AbstractCommonEntity<?>) prevEntity, (AbstractCommonEntity<?>) entity);
 		
 	}
 
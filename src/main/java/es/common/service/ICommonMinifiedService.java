@@ -4,6 +4,8 @@ import java.util.Collection;
 
 import org.springframework.hateoas.EntityModel;
 
+import es.common.dto.MultiGetResultDto;
+
 /**
  * Contract to be used by those services that are being used by the controller layer
  * 
@@ -30,6 +32,16 @@ public interface ICommonMinifiedService<D, K, M>
 	 */
 	EntityModel<M> findByIdMinified(K id);
 	
+	/**
+	 * Return the minified DTOs of the domain entities by the given identifiers, on the same
+	 * order as the identifiers were received. The identifiers without entity are reported on
+	 * the result instead of failing the whole request
+	 * 
+	 * @param ids the identifiers of the entities
+	 * @return the minified DTOs found and the missing identifiers
+	 */
+	MultiGetResultDto<M, K> findAllByIdsMinified(Collection<K> ids);
+	
 	/**
 	 * Saves the domain entity associated with the given DTO
 	 * 
@@ -0,0 +1,475 @@
+package es.common.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.EntityModel;
+
+import es.common.datasource.ShardRoutingDataSource;
+import es.common.datasource.ShardStrategy;
+import es.common.dto.MultiGetResultDto;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Service that splits the entities of another service between several shards, by their key.
+ * The wrapped service must work over a {@link ShardRoutingDataSource}.<br><br>
+ *
+ * The single-entity operations run on the shard of their key. The bulk operations split their
+ * input by shard and run every shard in parallel, each one on its own transaction, so they are
+ * not atomic between shards. The reads of every entity are sent to all the shards and their
+ * results merged. New entities must have their key assigned before being saved, for example
+ * with the {@link es.common.entity.TimeOrderedIdGenerator}, since the key chooses the shard.
+ * The operations must be called outside the transactions, since every shard runs its own.<br><br>
+ *
+ * The shards run in parallel on other threads, which do not see the thread-locals of the
+ * caller, as the security context or the locale. When the delegate needs them, the service
+ * must be given an executor that propagates them, as the
+ * {@code DelegatingSecurityContextExecutorService} of Spring Security. The executor created by
+ * the service, when none is given, is shut down by {@link #close()}, which Spring calls when the
+ * service is a bean.
+ *
+ * @param <D> the DTO associated with the domain entity
+ * @param <K> the identifier of the entity
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class ShardedService<D, K> implements ICommonService<D, K>, AutoCloseable {
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final ICommonService<D, K> delegate;
+
+	private final int shardCount;
+
+	private final ShardStrategy<K> strategy;
+
+	private final Function<D, K> keyExtractor;
+
+	private final ExecutorService executor;
+
+	private final boolean ownExecutor;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * Creates the service, running the shards on its own daemon threads, at most one by shard
+	 *
+	 * @see #ShardedService(ICommonService, int, ShardStrategy, Function, ExecutorService)
+	 */
+	public ShardedService(@NotNull ICommonService<D, K> delegate, int shardCount, @NotNull ShardStrategy<K> strategy,
+			@NotNull Function<D, K> keyExtractor) {
+
+		this(delegate, shardCount, strategy, keyExtractor, newShardExecutor(shardCount), true);
+	}
+
+	/**
+	 * @param delegate the service of the entities, over a {@link ShardRoutingDataSource}
+	 * @param shardCount the number of shards
+	 * @param strategy the strategy that chooses the shard of every key
+	 * @param keyExtractor returns the key of a DTO
+	 * @param executor the executor of the operations sent to several shards, which is not shut
+	 *                 down by the service
+	 */
+	public ShardedService(@NotNull ICommonService<D, K> delegate, int shardCount, @NotNull ShardStrategy<K> strategy,
+			@NotNull Function<D, K> keyExtractor, @NotNull ExecutorService executor) {
+
+		this(delegate, shardCount, strategy, keyExtractor, executor, false);
+	}
+
+	private ShardedService(ICommonService<D, K> delegate, int shardCount, ShardStrategy<K> strategy,
+			Function<D, K> keyExtractor, ExecutorService executor, boolean ownExecutor) {
+
+		if (shardCount < 1)
+			throw new IllegalArgumentException("There must be at least one shard");
+
+		this.delegate = delegate;
+		this.shardCount = shardCount;
+		this.strategy = strategy;
+		this.keyExtractor = keyExtractor;
+		this.executor = executor;
+		this.ownExecutor = ownExecutor;
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * {@inheritDoc}<br>
+	 * The entities are returned grouped by shard, on no particular order
+	 *
+	 * @see #findAll(Comparator)
+	 */
+	@Override
+	public Collection<EntityModel<D>> findAll() {
+
+		List<EntityModel<D>> all = new ArrayList<>();
+
+		onAllShards(delegate::findAll).values().forEach(all::addAll);
+
+		return all;
+	}
+
+	/**
+	 * Returns the entities of all the shards, on the given order
+	 *
+	 * @param order the order of the DTOs
+	 * @return the entities
+	 */
+	public List<EntityModel<D>> findAll(@NotNull Comparator<? super D> order) {
+
+		List<EntityModel<D>> all = new ArrayList<>(findAll());
+
+		all.sort((left, right) -> order.compare(left.getContent(), right.getContent()));
+
+		return all;
+	}
+
+	/**
+	 * Returns a page of the entities of all the shards. Every shard is asked for all the rows
+	 * up to the end of the requested page, with the same sort, and the results are merged, so
+	 * the cost of a page grows with its number
+	 *
+	 * @param pageable the requested page, its sort must be the same as the order
+	 * @param shardQuery the query of a page on a single shard, for example a repository findAll
+	 * @param order the order of the elements, the same as the sort of the pageable
+	 * @return the page
+	 */
+	public <T> Page<T> findPage(@NotNull Pageable pageable, @NotNull Function<Pageable, Page<T>> shardQuery,
+			@NotNull Comparator<? super T> order) {
+
+		if (pageable.isUnpaged())
+			throw new IllegalArgumentException("Sharded pages must be paged");
+
+		Pageable prefix = PageRequest.of(0, (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()),
+				pageable.getSort());
+
+		Map<Integer, Page<T>> pages = onAllShards(() -> shardQuery.apply(prefix));
+
+		// K-way merge of the sorted pages of every shard
+		PriorityQueue<Cursor<T>> cursors = new PriorityQueue<>(Math.max(1, pages.size()),
+				(left, right) -> order.compare(left.current, right.current));
+
+		long total = 0L;
+
+		for (Page<T> page : pages.values()) {
+
+			total += page.getTotalElements();
+			Iterator<T> iterator = page.getContent().iterator();
+
+			if (iterator.hasNext())
+				cursors.add(new Cursor<>(iterator));
+		}
+
+		List<T> content = new ArrayList<>(pageable.getPageSize());
+		long skip = pageable.getOffset();
+
+		while (!cursors.isEmpty() && content.size() < pageable.getPageSize()) {
+
+			Cursor<T> cursor = cursors.poll();
+
+			if (skip > 0)
+				skip--;
+			else
+				content.add(cursor.current);
+
+			if (cursor.advance())
+				cursors.add(cursor);
+		}
+
+		return new PageImpl<>(content, pageable, total);
+	}
+
+	@Override
+	public EntityModel<D> findById(K id) {
+
+		return ShardRoutingDataSource.runOn(shardOf(id), () -> delegate.findById(id));
+	}
+
+	/**
+	 * {@inheritDoc}<br>
+	 * The found entities and the missing identifiers keep the order of the given identifiers
+	 */
+	@Override
+	public MultiGetResultDto<D, K> findAllByIds(Collection<K> ids) {
+
+		List<K> keys = new ArrayList<>(ids.size());
+
+		for (K id : ids) {
+
+			if (id != null)
+				keys.add(id);
+		}
+
+		Map<K, EntityModel<D>> byKey = new HashMap<>();
+
+		for (MultiGetResultDto<D, K> result : onShards(groupByShard(keys, Function.identity()), delegate::findAllByIds).values())
+			result.getFound().forEach(model -> byKey.put(keyExtractor.apply(model.getContent()), model));
+
+		List<EntityModel<D>> found = new ArrayList<>(byKey.size());
+		List<K> missingIds = new ArrayList<>();
+
+		for (K id : ids) {
+
+			EntityModel<D> model = (id == null) ? null : byKey.get(id);
+
+			if (model == null)
+				missingIds.add(id);
+			else
+				found.add(model);
+		}
+
+		return new MultiGetResultDto<>(found, missingIds);
+	}
+
+	@Override
+	public EntityModel<D> save(D dto) {
+
+		return ShardRoutingDataSource.runOn(shardOf(keyOf(dto)), () -> delegate.save(dto));
+	}
+
+	@Override
+	public EntityModel<D> update(D dto) {
+
+		return ShardRoutingDataSource.runOn(shardOf(keyOf(dto)), () -> delegate.update(dto));
+	}
+
+	/**
+	 * {@inheritDoc}<br>
+	 * The entities are returned grouped by shard
+	 */
+	@Override
+	public Collection<EntityModel<D>> saveAll(Collection<D> dtos) {
+
+		List<EntityModel<D>> saved = new ArrayList<>(dtos.size());
+
+		onShards(groupByShard(dtos, this::keyOf), delegate::saveAll).values().forEach(saved::addAll);
+
+		return saved;
+	}
+
+	/**
+	 * {@inheritDoc}<br>
+	 * The entities are returned grouped by shard
+	 */
+	@Override
+	public Collection<EntityModel<D>> updateAll(Collection<D> dtos) {
+
+		List<EntityModel<D>> updated = new ArrayList<>(dtos.size());
+
+		onShards(groupByShard(dtos, this::keyOf), delegate::updateAll).values().forEach(updated::addAll);
+
+		return updated;
+	}
+
+	@Override
+	public void deleteById(K id) {
+
+		ShardRoutingDataSource.runOn(shardOf(id), () -> {
+			delegate.deleteById(id);
+			return null;
+		});
+	}
+
+	@Override
+	public void deleteByIds(Collection<K> ids) {
+
+		onShards(groupByShard(ids, Function.identity()), shardIds -> {
+			delegate.deleteByIds(shardIds);
+			return null;
+		});
+	}
+
+	/**
+	 * Returns the shard of the given key
+	 *
+	 * @param key the key
+	 * @return the shard
+	 */
+	public int shardOf(@NotNull K key) {
+
+		return strategy.shardOf(key, shardCount);
+	}
+
+	public int getShardCount() {
+
+		return shardCount;
+	}
+
+	/**
+	 * Shuts down the executor created by the service, the given ones are left running
+	 */
+	@Override
+	public void close() {
+
+		if (ownExecutor)
+			executor.shutdown();
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private K keyOf(D dto) {
+
+		K key = keyExtractor.apply(dto);
+
+		if (key == null)
+			throw new IllegalArgumentException("Sharded entities must have their key assigned before being saved");
+
+		return key;
+	}
+
+	private <T> Map<Integer, List<T>> groupByShard(Collection<T> values, Function<T, K> key) {
+
+		Map<Integer, List<T>> groups = new LinkedHashMap<>();
+
+		for (T value : values)
+			groups.computeIfAbsent(shardOf(key.apply(value)), shard -> new ArrayList<>()).add(value);
+
+		return groups;
+	}
+
+	private <T> Map<Integer, T> onAllShards(Supplier<T> action) {
+
+		Map<Integer, Integer> shards = new LinkedHashMap<>();
+
+		for (int shard = 0; shard < shardCount; shard++)
+			shards.put(shard, shard);
+
+		return onShards(shards, shard -> action.get());
+	}
+
+	/**
+	 * Runs the action with the input of every shard on its shard, in parallel if there are
+	 * several shards. Every shard is waited for, so none is still running when it returns, and
+	 * the first error is thrown with the errors of the other shards suppressed on it
+	 */
+	private <I, T> Map<Integer, T> onShards(Map<Integer, I> inputs, Function<I, T> action) {
+
+		Map<Integer, T> results = new LinkedHashMap<>();
+
+		if (inputs.size() == 1) {
+
+			Map.Entry<Integer, I> single = inputs.entrySet().iterator().next();
+			results.put(single.getKey(), ShardRoutingDataSource.runOn(single.getKey(), () -> action.apply(single.getValue())));
+
+			return results;
+		}
+
+		Map<Integer, Future<T>> futures = new LinkedHashMap<>();
+
+		inputs.forEach((shard, input) -> futures.put(shard,
+				executor.submit(() -> ShardRoutingDataSource.runOn(shard, () -> action.apply(input)))));
+
+		Throwable error = null;
+
+		for (Map.Entry<Integer, Future<T>> future : futures.entrySet()) {
+
+			try {
+
+				results.put(future.getKey(), future.getValue().get());
+
+			} catch (ExecutionException e) {
+
+				if (error == null)
+					error = e.getCause();
+				else if (error != e.getCause())
+					error.addSuppressed(e.getCause());
+
+			} catch (InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+				futures.values().forEach(pending -> pending.cancel(true));
+
+				IllegalStateException interrupted = new IllegalStateException("Interrupted while waiting for the shards", e);
+
+				if (error != null)
+					interrupted.addSuppressed(error);
+
+				throw interrupted;
+			}
+		}
+
+		if (error instanceof RuntimeException)
+			throw (RuntimeException) error;
+
+		if (error instanceof Error)
+			throw (Error) error;
+
+		if (error != null)
+			throw new IllegalStateException(error);
+
+		return results;
+	}
+
+	private static ExecutorService newShardExecutor(int shardCount) {
+
+		AtomicInteger counter = new AtomicInteger();
+
+		// One thread by shard, which end when they are idle
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(Math.max(1, shardCount), Math.max(1, shardCount), 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "shard-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Position on the sorted page of a shard
+	 */
+	private static final class Cursor<T> {
+
+		private final Iterator<T> iterator;
+		private T current;
+
+		Cursor(Iterator<T> iterator) {
+			this.iterator = iterator;
+			this.current = iterator.next();
+		}
+
+		boolean advance() {
+
+			if (!iterator.hasNext())
+				return false;
+
+			current = iterator.next();
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,292 @@
+package es.common.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.hateoas.EntityModel;
+
+import jakarta.validation.ValidationException;
+
+import lombok.extern.apachecommons.CommonsLog;
+
+/**
+ * Coalesces the single-entity writes received concurrently into batched writes.<br><br>
+ *
+ * The saves (and the updates) that arrive within the configured window, up to the maximum
+ * batch size, are sent together through {@link ICommonService#saveAll(Collection)} (or
+ * {@link ICommonService#updateAll(Collection)}), so they share a single transaction and commit.
+ * Every caller receives its own result.<br><br>
+ *
+ * If a batch of saves fails because of its rows (a data integrity violation, a validation
+ * error or an illegal argument), its writes are retried one by one, so only the callers with
+ * the failing writes receive the error. Any other failure, as a database outage, and any
+ * failure of a batch of updates, is received by all the callers of the batch. If the batch
+ * returns a different number of results than writes, its writes are already committed, so
+ * they are not retried and all its callers receive an {@link IllegalStateException}.
+ *
+ * @param <D> the DTO associated with the domain entity
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@CommonsLog
+public class WriteCoalescer<D> implements AutoCloseable {
+
+	/**
+	 * Time that an idle dispatcher waits before checking if the coalescer was closed
+	 */
+	private static final long IDLE_POLL_MILLIS = 100L;
+
+	private final long windowNanos;
+	private final int maxBatchSize;
+
+	private final BlockingQueue<PendingWrite<D>> saves = new LinkedBlockingQueue<>();
+	private final BlockingQueue<PendingWrite<D>> updates = new LinkedBlockingQueue<>();
+
+	private final Thread saveDispatcher;
+	private final Thread updateDispatcher;
+
+	private volatile boolean running = true;
+
+	/**
+	 * Creates the coalescer and starts its dispatcher threads
+	 *
+	 * @param service the service where the writes are sent
+	 * @param window maximum time that a write waits for other writes to join its batch
+	 * @param maxBatchSize maximum number of writes sent together
+	 */
+	public WriteCoalescer(ICommonService<D, ?> service, Duration window, int maxBatchSize) {
+
+		if (maxBatchSize < 1)
+			throw new IllegalArgumentException("The maximum batch size must be positive");
+
+		this.windowNanos = window.toNanos();
+		this.maxBatchSize = maxBatchSize;
+
+		this.saveDispatcher = startDispatcher("save", saves, service::saveAll, service::save);
+		this.updateDispatcher = startDispatcher("update", updates, service::updateAll, null);
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Queues the DTO to be saved on the next batch
+	 *
+	 * @param dto the DTO to be saved
+	 * @return future completed with the DTO with links of the saved entity, or with its error
+	 */
+	public CompletableFuture<EntityModel<D>> save(D dto) {
+
+		return enqueue(saves, saveDispatcher, dto);
+	}
+
+	/**
+	 * Queues the DTO to be updated on the next batch
+	 *
+	 * @param dto the DTO to be updated
+	 * @return future completed with the DTO with links of the updated entity, or with its error
+	 */
+	public CompletableFuture<EntityModel<D>> update(D dto) {
+
+		return enqueue(updates, updateDispatcher, dto);
+	}
+
+	/**
+	 * Stops accepting writes and waits until the writes already queued are flushed. If the
+	 * calling thread is interrupted, it stops waiting and keeps its interrupt flag, while the
+	 * dispatchers go on flushing the queued writes
+	 */
+	@Override
+	public void close() {
+
+		running = false;
+
+		try {
+
+			saveDispatcher.join();
+			updateDispatcher.join();
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			log.warn("Interrupted while waiting for the queued writes to be flushed");
+		}
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private CompletableFuture<EntityModel<D>> enqueue(BlockingQueue<PendingWrite<D>> queue, Thread dispatcher, D dto) {
+
+		PendingWrite<D> write = new PendingWrite<>(dto);
+
+		queue.add(write);
+
+		// The dispatcher may have already ended, so the write is rejected if it is still queued
+		if ((!running || !dispatcher.isAlive()) && queue.remove(write))
+			write.result.completeExceptionally(new IllegalStateException("The write coalescer is closed"));
+
+		return write.result;
+	}
+
+	/**
+	 * Starts the dispatcher of the given queue
+	 *
+	 * @param singleWriter the writer of the retries of the failed rows, or null if they are not retried
+	 */
+	private Thread startDispatcher(String name, BlockingQueue<PendingWrite<D>> queue,
+			Function<Collection<D>, Collection<EntityModel<D>>> batchWriter,
+			Function<D, EntityModel<D>> singleWriter) {
+
+		Thread thread = new Thread(() -> dispatch(queue, batchWriter, singleWriter),
+				"write-coalescer-" + name);
+		thread.setDaemon(true);
+		thread.start();
+
+		return thread;
+	}
+
+	private void dispatch(BlockingQueue<PendingWrite<D>> queue,
+			Function<Collection<D>, Collection<EntityModel<D>>> batchWriter,
+			Function<D, EntityModel<D>> singleWriter) {
+
+		List<PendingWrite<D>> batch = new ArrayList<>(maxBatchSize);
+
+		while (running || !queue.isEmpty()) {
+
+			try {
+
+				PendingWrite<D> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+				if (first == null)
+					continue;
+
+				batch.add(first);
+				long deadline = System.nanoTime() + windowNanos;
+
+				while (batch.size() < maxBatchSize) {
+
+					if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0)
+						continue;
+
+					long remaining = deadline - System.nanoTime();
+
+					if (remaining <= 0)
+						break;
+
+					PendingWrite<D> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+
+					if (next == null)
+						break;
+
+					batch.add(next);
+				}
+
+				flush(batch, batchWriter, singleWriter);
+
+			} catch (InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+				running = false;
+
+			} finally {
+
+				batch.forEach(write -> write.result.completeExceptionally(
+						new IllegalStateException("The write coalescer was interrupted")));
+				batch.clear();
+			}
+		}
+	}
+
+	private void flush(List<PendingWrite<D>> batch,
+			Function<Collection<D>, Collection<EntityModel<D>>> batchWriter,
+			Function<D, EntityModel<D>> singleWriter) {
+
+		List<D> dtos = new ArrayList<>(batch.size());
+		batch.forEach(write -> dtos.add(write.dto));
+
+		List<EntityModel<D>> results;
+
+		try {
+
+			results = new ArrayList<>(batchWriter.apply(dtos));
+
+		} catch (Throwable e) {
+
+			// Errors are handed to the callers too, so the dispatcher keeps running
+			if (batch.size() == 1 || singleWriter == null || !isRowFailure(e)) {
+
+				batch.forEach(write -> write.result.completeExceptionally(e));
+				return;
+			}
+
+			log.debug(String.format("Batch of %d writes failed, retrying them one by one", batch.size()), e);
+
+			for (PendingWrite<D> write : batch) {
+
+				try {
+					write.result.complete(singleWriter.apply(write.dto));
+				} catch (Throwable ex) {
+					write.result.completeExceptionally(ex);
+				}
+			}
+
+			return;
+		}
+
+		if (results.size() != batch.size()) {
+
+			// The batch is already committed, so it must not be written again
+			IllegalStateException mismatch = new IllegalStateException(String.format(
+					"The batch returned %d results for %d writes", results.size(), batch.size()));
+
+			batch.forEach(write -> write.result.completeExceptionally(mismatch));
+			return;
+		}
+
+		for (int i = 0; i < batch.size(); i++)
+			batch.get(i).result.complete(results.get(i));
+	}
+
+	/**
+	 * Indicates if the failure of a batch is caused by some of its rows, so the rest of them
+	 * can be written on their own
+	 */
+	private static boolean isRowFailure(Throwable failure) {
+
+		for (Throwable cause = failure; cause != null; cause = (cause.getCause() == cause) ? null : cause.getCause()) {
+
+			if (cause instanceof DataIntegrityViolationException
+					|| cause instanceof ValidationException
+					|| cause instanceof IllegalArgumentException)
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * A write waiting for its batch
+	 */
+	private static class PendingWrite<D> {
+
+		private final D dto;
+		private final CompletableFuture<EntityModel<D>> result = new CompletableFuture<>();
+
+		PendingWrite(D dto) {
+			this.dto = dto;
+		}
+	}
+
+}
@@ -1,14 +1,15 @@
 package es.common.util;
 
-import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.List;
 
 import org.springframework.http.HttpStatusCode;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 
 import es.common.dto.ErrorResponseDto;
+import es.common.util.ErrorCodeRegistry.ErrorCode;
 
 /**
  * Utility class for helping to work with the API HTTP errors 
@@ -18,6 +19,14 @@ import es.common.dto.ErrorResponseDto;
  */
 public final class ApiErrorUtil {
 
+	// ##############
+	// # Properties #
+	// ##############
+
+	/**
+	 * Registry of the internal error codes and HTTP statuses of the exceptions
+	 */
+	private static volatile ErrorCodeRegistry registry = ErrorCodeRegistry.defaults();
 
 	// ###############
 	// # Constructor #
@@ -45,45 +54,72 @@ public final class ApiErrorUtil {
 	public static ErrorResponseDto buildErrorMsg(Exception ex, 
 			HttpStatusCode httpStatus) {
 		
+		return buildErrorMsg(ex, httpStatus, registry.get(ex.getClass()));
+	}
+
+	/**
+	 * Build error message with the HTTP status registered for the exception
+	 * 
+	 * @param ex the exception throwed
+	 * @return the exception message built
+	 */
+	public static ErrorResponseDto buildErrorMsg(Exception ex) {
+		
+		ErrorCode errorCode = registry.get(ex.getClass());
+		
+		return buildErrorMsg(ex, errorCode.getStatus(), errorCode);
+	}
+
+	/**
+	 * Returns the HTTP status registered for the given exception
+	 * 
+	 * @param ex the exception throwed
+	 * @return the HTTP status
+	 */
+	public static HttpStatusCode getHttpStatus(Exception ex) {
+		
+		return registry.get(ex.getClass()).getStatus();
+	}
+
+	/**
+	 * Replaces the registry of the internal error codes
+	 * 
+	 * @param errorCodeRegistry the new registry
+	 */
+	public static void setRegistry(ErrorCodeRegistry errorCodeRegistry) {
+		
+		registry = errorCodeRegistry;
+	}
+
+	
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private static ErrorResponseDto buildErrorMsg(Exception ex, HttpStatusCode httpStatus, ErrorCode errorCode) {
+		
 		String errorMessage = ex.getMessage();
 		Collection<String> validationErrors = null;
 		
 		if(ex instanceof BindException) {
 			
-			validationErrors = ((BindException)ex).getBindingResult()
-					.getFieldErrors()
-					.stream()
-					.map((FieldError fe) -> fe.getObjectName() + " - " + fe.getField() + " " + fe.getDefaultMessage())
-					.collect(Collectors.toList());
+			List<FieldError> fieldErrors = ((BindException)ex).getBindingResult().getFieldErrors();
+			List<String> errors = new ArrayList<>(fieldErrors.size());
 			
+			for (FieldError fe : fieldErrors)
+				errors.add(fe.getObjectName() + " - " + fe.getField() + " " + fe.getDefaultMessage());
+			
+			validationErrors = errors;
 			errorMessage = null;
 		}
 		
 		return new ErrorResponseDto(
-				ZonedDateTime.now(),
+				UtcClock.now(),
 				httpStatus.value(),
-				getInternalErrorCode(ex, httpStatus),
-				ex.getClass().getSimpleName(),
+				errorCode.getInternalCode(),
+				errorCode.getExceptionName(),
 				errorMessage,
 				validationErrors);
 	}
 
-	
-	// ###################
-	// # Private methods #
-	// ###################
-	
-	/**
-	 * Retrieves the internal error code linked to the exception throwed
-	 * 
-	 * @param ex the exception throwed
-	 * @param status the HTTP status to be applied and linked to the throwed exception
-	 * @return the internal error code
-	 */
-	private static String getInternalErrorCode(Exception ex, 
-			HttpStatusCode httpStatus) {
-		
-		return null;
-	}
-
 }
@@ -0,0 +1,209 @@
+package es.common.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.validation.BindException;
+
+import es.common.exception.StacklessEntityNotFoundException;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Registry of the internal error code and the HTTP status of every exception type.<br><br>
+ *
+ * An exception type takes the entry of its closest registered superclass, and the types
+ * without any take the default HTTP status and no internal code. The entry of every exception
+ * type is resolved the first time it is needed and kept, so the registry is immutable once
+ * built.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public final class ErrorCodeRegistry {
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final Map<Class<?>, ErrorCode> registered;
+
+	private final ErrorCode fallback;
+
+	private final ClassValue<ErrorCode> resolved = new ClassValue<>() {
+
+		@Override
+		protected ErrorCode computeValue(Class<?> type) {
+			return resolve(type);
+		}
+	};
+
+	// ################
+	// # Constructors #
+	// ################
+
+	private ErrorCodeRegistry(Map<Class<?>, ErrorCode> registered, HttpStatusCode defaultStatus) {
+
+		this.registered = registered;
+		this.fallback = new ErrorCode(null, defaultStatus, null);
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Returns a new builder, without any exception registered
+	 *
+	 * @return the builder
+	 */
+	public static Builder builder() {
+
+		return new Builder();
+	}
+
+	/**
+	 * Returns the registry with the exceptions thrown by the common services
+	 *
+	 * @return the default registry
+	 */
+	public static ErrorCodeRegistry defaults() {
+
+		return builder()
+				.register(EntityNotFoundException.class, "ENTITY_NOT_FOUND", HttpStatus.NOT_FOUND)
+				// Shown as its superclass, the stackless variant is an implementation detail
+				.register(StacklessEntityNotFoundException.class, "ENTITY_NOT_FOUND", HttpStatus.NOT_FOUND,
+						EntityNotFoundException.class.getSimpleName())
+				.register(OptimisticLockException.class, "CONCURRENT_MODIFICATION", HttpStatus.CONFLICT)
+				.register(ObjectOptimisticLockingFailureException.class, "CONCURRENT_MODIFICATION", HttpStatus.CONFLICT)
+				.register(BindException.class, "VALIDATION_ERROR", HttpStatus.BAD_REQUEST)
+				.register(IllegalArgumentException.class, "INVALID_ARGUMENT", HttpStatus.BAD_REQUEST)
+				.build();
+	}
+
+	/**
+	 * Returns the entry of the given exception type
+	 *
+	 * @param type the exception type
+	 * @return the entry of the type or of its closest registered superclass
+	 */
+	public ErrorCode get(@NotNull Class<? extends Throwable> type) {
+
+		return resolved.get(type);
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private ErrorCode resolve(Class<?> type) {
+
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+
+			ErrorCode entry = registered.get(current);
+
+			if (entry != null) {
+
+				String exceptionName = (entry.getExceptionName() != null && current == type)
+						? entry.getExceptionName()
+						: type.getSimpleName();
+
+				return new ErrorCode(entry.getInternalCode(), entry.getStatus(), exceptionName);
+			}
+		}
+
+		return new ErrorCode(null, fallback.getStatus(), type.getSimpleName());
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Internal code and HTTP status of an exception type
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static final class ErrorCode {
+
+		@Nullable
+		private final String internalCode;
+
+		private final HttpStatusCode status;
+
+		/**
+		 * Name of the exception type shown on the responses, its simple name by default
+		 */
+		@Nullable
+		private final String exceptionName;
+	}
+
+	/**
+	 * Builder of the registry
+	 */
+	public static final class Builder {
+
+		private final Map<Class<?>, ErrorCode> registered = new LinkedHashMap<>();
+
+		private HttpStatusCode defaultStatus = HttpStatus.INTERNAL_SERVER_ERROR;
+
+		private Builder() {
+		}
+
+		/**
+		 * Registers an exception type, its subclasses take the same entry unless they are
+		 * registered too
+		 *
+		 * @param type the exception type
+		 * @param internalCode the internal error code
+		 * @param status the HTTP status
+		 * @return this builder
+		 */
+		public Builder register(@NotNull Class<? extends Throwable> type, @Nullable String internalCode,
+				@NotNull HttpStatusCode status) {
+
+			return register(type, internalCode, status, null);
+		}
+
+		/**
+		 * Registers an exception type, shown on the responses with the given name
+		 *
+		 * @param type the exception type
+		 * @param internalCode the internal error code
+		 * @param status the HTTP status
+		 * @param exceptionName the name shown, null to show its simple name
+		 * @return this builder
+		 */
+		public Builder register(@NotNull Class<? extends Throwable> type, @Nullable String internalCode,
+				@NotNull HttpStatusCode status, @Nullable String exceptionName) {
+
+			registered.put(type, new ErrorCode(internalCode, status, exceptionName));
+			return this;
+		}
+
+		/**
+		 * Sets the HTTP status of the exception types not registered
+		 *
+		 * @param status the HTTP status, 500 by default
+		 * @return this builder
+		 */
+		public Builder defaultStatus(@NotNull HttpStatusCode status) {
+
+			this.defaultStatus = status;
+			return this;
+		}
+
+		public ErrorCodeRegistry build() {
+
+			return new ErrorCodeRegistry(Map.copyOf(registered), defaultStatus);
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+package es.common.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.LongSupplier;
+
+import javax.sql.DataSource;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Allocator of identifiers by blocks: it takes a block from its source and hands out its
+ * identifiers locally, so identifiers can be assigned without a round trip per entity, for
+ * example to the DTOs of a bulk insert before calling {@code saveAll}.<br><br>
+ *
+ * Every value of the source is the lowest identifier of a block (as the pooled-lo optimizer of
+ * {@link es.common.entity.PooledSequenceIdGenerator} uses it), so a database sequence
+ * incremented by the block size can be shared with the entities.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class IdBlockAllocator {
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final LongSupplier blockSource;
+
+	private final int blockSize;
+
+	private long next;
+
+	private long limit;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param blockSource returns the lowest identifier of a new block every time it is called
+	 * @param blockSize number of identifiers of every block
+	 */
+	public IdBlockAllocator(@NotNull LongSupplier blockSource, int blockSize) {
+
+		if (blockSize < 1)
+			throw new IllegalArgumentException("Block size must be positive");
+
+		this.blockSource = blockSource;
+		this.blockSize = blockSize;
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Builds an allocator over a database sequence, which must be incremented by the block size
+	 *
+	 * @param dataSource the data source
+	 * @param nextValueQuery the query of the next value, for example {@code select nextval('user_seq')}
+	 * @param blockSize number of identifiers of every block
+	 * @return the allocator
+	 */
+	public static IdBlockAllocator ofSequence(@NotNull DataSource dataSource, @NotNull String nextValueQuery,
+			int blockSize) {
+
+		return new IdBlockAllocator(() -> {
+
+			try (Connection connection = dataSource.getConnection();
+					Statement statement = connection.createStatement();
+					ResultSet result = statement.executeQuery(nextValueQuery)) {
+
+				result.next();
+				return result.getLong(1);
+
+			} catch (SQLException e) {
+				throw new IllegalStateException("The next block of identifiers could not be read", e);
+			}
+		}, blockSize);
+	}
+
+	/**
+	 * Returns the next identifier
+	 *
+	 * @return the identifier
+	 */
+	public synchronized long next() {
+
+		if (next >= limit) {
+
+			next = blockSource.getAsLong();
+			limit = next + blockSize;
+		}
+
+		return next++;
+	}
+
+	/**
+	 * Returns the given number of identifiers, asking only for the blocks needed
+	 *
+	 * @param count number of identifiers
+	 * @return the identifiers
+	 */
+	public synchronized long[] next(int count) {
+
+		long[] ids = new long[count];
+
+		for (int i = 0; i < count; i++)
+			ids[i] = next();
+
+		return ids;
+	}
+
+	public int getBlockSize() {
+
+		return blockSize;
+	}
+
+}
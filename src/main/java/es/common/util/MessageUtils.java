@@ -1,7 +1,34 @@
 package es.common.util;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import lombok.extern.apachecommons.CommonsLog;
+
+@CommonsLog
 public class MessageUtils {
 
+	/**
+	 * Name of the static field that holds the descriptor of an entity
+	 */
+	public static final String DEFAULT_DESCRIPTOR_FIELD = "DEFAULT_DESCRIPTOR";
+
+	/**
+	 * Name of the descriptor field used by the older entities, still accepted
+	 */
+	public static final String LEGACY_DESCRIPTOR_FIELD = "DEFAULT_DESCRIPTION";
+
+	/**
+	 * Messages of every entity class, rendered the first time they are needed
+	 */
+	private static final ClassValue<EntityMessages> ENTITY_MESSAGES = new ClassValue<>() {
+
+		@Override
+		protected EntityMessages computeValue(Class<?> entityClazz) {
+			return new EntityMessages(resolveDescriptor(entityClazz));
+		}
+	};
+
 	/**
 	 * Method that returns the message to be build when an entity is not found
 	 * 
@@ -41,4 +68,98 @@ public class MessageUtils {
 	public static String identifierMustNotBeNull(String entityDescriptor) {
 		return String.format("the identifier of the %s entity must not be null", entityDescriptor);
 	}
+
+	/**
+	 * Returns the descriptor of the given entity class: its {@value #DEFAULT_DESCRIPTOR_FIELD}
+	 * field, its {@value #LEGACY_DESCRIPTOR_FIELD} field or its canonical name, in that order.
+	 * It is only resolved once per class
+	 * 
+	 * @param entityClazz the entity class
+	 * @return the descriptor of the entity
+	 */
+	public static String entityDescriptor(Class<?> entityClazz) {
+		return ENTITY_MESSAGES.get(entityClazz).descriptor;
+	}
+
+	/**
+	 * Pre-rendered version of {@link #entityNotFoundExceptionMessage(String)}
+	 * 
+	 * @param entityClazz the entity class
+	 * @return the message to be shown or logged
+	 */
+	public static String entityNotFoundExceptionMessage(Class<?> entityClazz) {
+		return ENTITY_MESSAGES.get(entityClazz).notFound;
+	}
+
+	/**
+	 * Pre-rendered version of {@link #entityAlrreadyExistsExceptionMessage(String)}
+	 * 
+	 * @param entityClazz the entity class
+	 * @return the message to be shown or logged
+	 */
+	public static String entityAlrreadyExistsExceptionMessage(Class<?> entityClazz) {
+		return ENTITY_MESSAGES.get(entityClazz).alreadyExists;
+	}
+
+	/**
+	 * Pre-rendered version of {@link #identifierMustBeNull(String)}
+	 * 
+	 * @param entityClazz the entity class
+	 * @return the message to be shown or logged
+	 */
+	public static String identifierMustBeNull(Class<?> entityClazz) {
+		return ENTITY_MESSAGES.get(entityClazz).identifierMustBeNull;
+	}
+
+	/**
+	 * Pre-rendered version of {@link #identifierMustNotBeNull(String)}
+	 * 
+	 * @param entityClazz the entity class
+	 * @return the message to be shown or logged
+	 */
+	public static String identifierMustNotBeNull(Class<?> entityClazz) {
+		return ENTITY_MESSAGES.get(entityClazz).identifierMustNotBeNull;
+	}
+
+	private static String resolveDescriptor(Class<?> entityClazz) {
+
+		for (String fieldName : new String[] { DEFAULT_DESCRIPTOR_FIELD, LEGACY_DESCRIPTOR_FIELD }) {
+
+			try {
+
+				Field field = entityClazz.getField(fieldName);
+
+				if (Modifier.isStatic(field.getModifiers()) && field.get(null) instanceof String)
+					return (String) field.get(null);
+
+			} catch (NoSuchFieldException | IllegalAccessException e) {
+				// Try the next field
+			}
+		}
+
+		log.warn(String.format("The '%s' field was not found on the given entity %s, its class name is used instead",
+				DEFAULT_DESCRIPTOR_FIELD, entityClazz.getCanonicalName()));
+
+		return entityClazz.getCanonicalName();
+	}
+
+	/**
+	 * Messages of an entity class
+	 */
+	private static final class EntityMessages {
+
+		private final String descriptor;
+		private final String notFound;
+		private final String alreadyExists;
+		private final String identifierMustBeNull;
+		private final String identifierMustNotBeNull;
+
+		EntityMessages(String descriptor) {
+			this.descriptor = descriptor;
+			this.notFound = entityNotFoundExceptionMessage(descriptor);
+			this.alreadyExists = entityAlrreadyExistsExceptionMessage(descriptor);
+			this.identifierMustBeNull = identifierMustBeNull(descriptor);
+			this.identifierMustNotBeNull = identifierMustNotBeNull(descriptor);
+		}
+	}
 }
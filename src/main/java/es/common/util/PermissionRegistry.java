@@ -0,0 +1,152 @@
+package es.common.util;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Registry that assigns a fixed position to every role or permission name, so a set of them
+ * can be stored as a bitset and sent on the tokens as a compact base64 string.<br><br>
+ *
+ * The issuer and the validators of the tokens must share the same registry. New names must
+ * always be appended at the end, so the tokens already issued keep its meaning.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public final class PermissionRegistry {
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private final List<String> names;
+	private final Map<String, Integer> positions;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param names the registered names, on its fixed order
+	 * @throws IllegalArgumentException if any name is duplicated
+	 */
+	public PermissionRegistry(@NotNull List<String> names) {
+
+		this.names = Collections.unmodifiableList(new ArrayList<>(names));
+		this.positions = new HashMap<>(names.size() * 2);
+
+		for (int i = 0; i < names.size(); i++) {
+
+			if (positions.put(names.get(i), i) != null)
+				throw new IllegalArgumentException("Duplicated name on the registry: " + names.get(i));
+		}
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Returns the position of the given name
+	 *
+	 * @param name the role or permission name
+	 * @return its position, or -1 if it is not registered
+	 */
+	public int indexOf(String name) {
+
+		Integer position = positions.get(name);
+
+		return (position == null) ? -1 : position;
+	}
+
+	/**
+	 * Builds the bitset of the given names
+	 *
+	 * @param names the role or permission names
+	 * @return the bitset with the position of every name set
+	 * @throws IllegalArgumentException if any name is not registered
+	 */
+	public BitSet toBitSet(@NotNull Collection<String> names) {
+
+		BitSet bits = new BitSet(this.names.size());
+
+		for (String name : names) {
+
+			int position = indexOf(name);
+
+			if (position < 0)
+				throw new IllegalArgumentException("Name not registered: " + name);
+
+			bits.set(position);
+		}
+
+		return bits;
+	}
+
+	/**
+	 * Returns the names of the positions set on the bitset
+	 *
+	 * @param bits the bitset
+	 * @return the registered names, the unknown positions are ignored
+	 */
+	public List<String> toNames(@NotNull BitSet bits) {
+
+		List<String> result = new ArrayList<>(bits.cardinality());
+
+		for (int i = bits.nextSetBit(0); i >= 0 && i < names.size(); i = bits.nextSetBit(i + 1))
+			result.add(names.get(i));
+
+		return result;
+	}
+
+	/**
+	 * Encodes the given names as a base64 (URL safe) bitset
+	 *
+	 * @param names the role or permission names
+	 * @return the encoded bitset
+	 */
+	public String encode(@NotNull Collection<String> names) {
+
+		return encode(toBitSet(names));
+	}
+
+	/**
+	 * Encodes the given bitset as base64 (URL safe)
+	 *
+	 * @param bits the bitset
+	 * @return the encoded bitset
+	 */
+	public static String encode(@NotNull BitSet bits) {
+
+		return ENCODER.encodeToString(bits.toByteArray());
+	}
+
+	/**
+	 * Decodes a bitset encoded with {@link #encode(BitSet)}
+	 *
+	 * @param encoded the encoded bitset
+	 * @return the bitset
+	 */
+	public static BitSet decode(@NotNull String encoded) {
+
+		return BitSet.valueOf(DECODER.decode(encoded));
+	}
+
+	/**
+	 * Returns the registered names
+	 *
+	 * @return the names, on its fixed order
+	 */
+	public List<String> getNames() {
+
+		return names;
+	}
+
+}
@@ -1,19 +1,59 @@
 package es.common.util;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.github.javaparser.quality.Preconditions;
 
+import es.common.http.GzipInterceptor;
+import es.common.http.HedgingPolicy;
+import es.common.http.HttpClientSettings;
+import es.common.http.HttpResponseCache;
+import es.common.http.JsonStreamExtractor;
+import es.common.http.MetricsInterceptor;
+import es.common.http.PooledClientHttpRequestFactory;
+import es.common.http.ResilienceInterceptor;
+import es.common.http.ResilienceSettings;
+import es.common.http.RestCall;
+import es.common.http.RestCallResult;
+import es.common.http.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Nullable;
 
 /**
@@ -39,6 +79,25 @@ public final class RestTemplateUtil {
 	private static final String CHECK_URL_MESSAGE = "URL must not be empty";
 	private static final String CHECK_BODY_MESSAGE = "Body must not be null";
 
+	private static final MediaType HAL_JSON = MediaType.valueOf("application/hal+json");
+
+	/**
+	 * Rest template used when none is received, backed by a pooled keep-alive HTTP client
+	 */
+	private static volatile RestTemplate defaultRestTemplate;
+
+	/**
+	 * Executor of the fan-out calls: virtual threads when the runtime supports them,
+	 * daemon platform threads otherwise
+	 */
+	private static final ExecutorService FAN_OUT_EXECUTOR = createFanOutExecutor();
+
+	/**
+	 * Mapper of the streamed collections, when the rest template has no JSON converter
+	 */
+	private static final ObjectMapper STREAMING_MAPPER = new ObjectMapper().findAndRegisterModules()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
 	// ################
 	// # Constructors #
 	// ################
@@ -56,6 +115,223 @@ public final class RestTemplateUtil {
 	// # Public methods #
 	// ##################
 
+	/**
+	 * Returns the rest template used when none is received. Unless another one is set, it is
+	 * backed by a {@link PooledClientHttpRequestFactory} with the default settings
+	 * 
+	 * @return the default rest template
+	 */
+	public static RestTemplate getDefaultRestTemplate() {
+
+		RestTemplate restTemplate = defaultRestTemplate;
+
+		if (restTemplate == null) {
+
+			synchronized (RestTemplateUtil.class) {
+
+				if (defaultRestTemplate == null)
+					defaultRestTemplate = new RestTemplate(new PooledClientHttpRequestFactory());
+
+				restTemplate = defaultRestTemplate;
+			}
+		}
+
+		return restTemplate;
+
+	}
+
+	/**
+	 * Builds a rest template over a pooled HTTP client, with retries of the idempotent requests,
+	 * a circuit breaker and a bulkhead per host and method
+	 * 
+	 * @param clientSettings     the settings of the HTTP client
+	 * @param resilienceSettings the settings of the resilience policies
+	 * @return RestTemplate
+	 */
+	public static RestTemplate createResilientRestTemplate(HttpClientSettings clientSettings,
+			ResilienceSettings resilienceSettings) {
+
+		RestTemplate restTemplate = new RestTemplate(new PooledClientHttpRequestFactory(clientSettings));
+		restTemplate.getInterceptors().add(new ResilienceInterceptor(resilienceSettings));
+
+		return restTemplate;
+
+	}
+
+	/**
+	 * Enables the gzip compression on the given rest template: the request bodies bigger than
+	 * the threshold are compressed and the compressed responses are accepted. The servers must
+	 * accept compressed bodies, see {@link es.common.http.GzipRequestBodyFilter}
+	 * 
+	 * @param restTemplate the rest template
+	 * @param threshold    minimum size, in bytes, of the bodies to be compressed
+	 * @return the added interceptor, which holds the compression counters
+	 */
+	public static GzipInterceptor enableGzip(RestTemplate restTemplate, int threshold) {
+
+		GzipInterceptor interceptor = new GzipInterceptor(threshold);
+
+		// Before the rest, so the retries send the already compressed body
+		restTemplate.getInterceptors().add(0, interceptor);
+
+		return interceptor;
+
+	}
+
+	/**
+	 * Enables the metrics of the calls of the given rest template. The metrics are recorded
+	 * after the gzip compression, so the sizes are the ones sent and read on the wire, and
+	 * before the retries, so every call is timed with all its attempts
+	 * 
+	 * @param restTemplate   the rest template
+	 * @param registry       the registry of the metrics
+	 * @param requestFactory the request factory of the rest template, to publish the requests
+	 *                       in progress by host, may be null
+	 * @param uriTemplates   the URI templates of the paths called, such as {@code /users/{id}},
+	 *                       the rest of the paths are tagged as unknown
+	 * @return the added interceptor
+	 */
+	public static MetricsInterceptor enableMetrics(RestTemplate restTemplate, MeterRegistry registry,
+			@Nullable PooledClientHttpRequestFactory requestFactory, Collection<String> uriTemplates) {
+
+		MetricsInterceptor metrics = new MetricsInterceptor(registry, uriTemplates);
+		List<ClientHttpRequestInterceptor> interceptors = restTemplate.getInterceptors();
+
+		if (requestFactory != null)
+			metrics.bindTo(requestFactory);
+
+		int position = 0;
+
+		for (int i = 0; i < interceptors.size(); i++) {
+
+			if (interceptors.get(i) instanceof GzipInterceptor)
+				position = i + 1;
+
+			if (interceptors.get(i) instanceof ResilienceInterceptor)
+				metrics.bindTo((ResilienceInterceptor) interceptors.get(i));
+		}
+
+		interceptors.add(position, metrics);
+
+		return metrics;
+
+	}
+
+	/**
+	 * Makes the given rest template ask for CBOR responses first. The servers configured with
+	 * {@link es.common.http.EnableCbor} answer with CBOR, and the rest keep answering with JSON.
+	 * The request bodies are still sent as JSON, unless the CBOR content type is set on the
+	 * request headers.<br><br>
+	 *
+	 * The CBOR mapper is a copy of the JSON mapper of the rest template, the HAL one when the
+	 * template is configured with Spring HATEOAS, so both formats are read the same way
+	 * 
+	 * @param restTemplate the rest template
+	 * @see #enableCbor(RestTemplate, ObjectMapper)
+	 */
+	public static void enableCbor(RestTemplate restTemplate) {
+
+		ObjectMapper jsonMapper = null;
+
+		for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+
+			if (converter instanceof MappingJackson2HttpMessageConverter jackson
+					&& !(jackson.getObjectMapper().getFactory() instanceof CBORFactory)
+					&& (jsonMapper == null || jackson.getSupportedMediaTypes().contains(MediaTypes.HAL_JSON)))
+				jsonMapper = jackson.getObjectMapper();
+		}
+
+		// Only the plain mappers can be copied with another factory
+		enableCbor(restTemplate, jsonMapper != null && jsonMapper.getClass() == ObjectMapper.class
+				? jsonMapper.copyWith(new CBORFactory())
+				: Jackson2ObjectMapperBuilder.cbor().build());
+
+	}
+
+	/**
+	 * Makes the given rest template ask for CBOR responses first, read and written with the given
+	 * mapper, as one built by {@link es.common.http.CborWebMvcConfigurer#cborMapper}
+	 * 
+	 * @param restTemplate the rest template
+	 * @param cborMapper   the CBOR mapper
+	 * @see #enableCbor(RestTemplate)
+	 */
+	public static void enableCbor(RestTemplate restTemplate, ObjectMapper cborMapper) {
+
+		Preconditions.checkArgument(cborMapper.getFactory() instanceof CBORFactory, "Mapper must be a CBOR mapper");
+
+		List<HttpMessageConverter<?>> converters = restTemplate.getMessageConverters();
+
+		converters.removeIf(MappingJackson2CborHttpMessageConverter.class::isInstance);
+		converters.add(0, new MappingJackson2CborHttpMessageConverter(cborMapper) {
+
+			@Override
+			public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+				return mediaType != null && mediaType.isConcrete() && super.canWrite(clazz, mediaType);
+			}
+		});
+
+	}
+
+	/**
+	 * Replaces the rest template used when none is received
+	 * 
+	 * @param restTemplate the new default rest template
+	 */
+	public static void setDefaultRestTemplate(RestTemplate restTemplate) {
+
+		Preconditions.checkNotNull(restTemplate, "Rest template must not be null");
+		defaultRestTemplate = restTemplate;
+
+	}
+
+	/**
+	 * Sends a GET HTTP request with the default rest template
+	 * 
+	 * @see #get(RestTemplate, String, ParameterizedTypeReference, HttpHeaders)
+	 */
+	public static <T> ResponseEntity<T> get(String url, ParameterizedTypeReference<T> type, HttpHeaders headers) {
+
+		return get(getDefaultRestTemplate(), url, type, headers);
+
+	}
+
+	/**
+	 * Sends a POST HTTP request with the default rest template
+	 * 
+	 * @see #post(RestTemplate, String, Object, ParameterizedTypeReference, HttpHeaders)
+	 */
+	public static <T> ResponseEntity<T> post(String url, Object body, ParameterizedTypeReference<T> type,
+			HttpHeaders headers) {
+
+		return post(getDefaultRestTemplate(), url, body, type, headers);
+
+	}
+
+	/**
+	 * Sends a PUT HTTP request with the default rest template
+	 * 
+	 * @see #put(RestTemplate, String, Object, ParameterizedTypeReference, HttpHeaders)
+	 */
+	public static <T> ResponseEntity<T> put(String url, Object body, ParameterizedTypeReference<T> type,
+			HttpHeaders headers) {
+
+		return put(getDefaultRestTemplate(), url, body, type, headers);
+
+	}
+
+	/**
+	 * Sends a DELETE HTTP request with the default rest template
+	 * 
+	 * @see #delete(RestTemplate, String, Object, ParameterizedTypeReference, HttpHeaders)
+	 */
+	public static <T> ResponseEntity<T> delete(String url, @Nullable Object body, ParameterizedTypeReference<T> type,
+			HttpHeaders headers) {
+
+		return delete(getDefaultRestTemplate(), url, body, type, headers);
+
+	}
+
 	/**
 	 * Sends a GET HTTP request to the specified URL and returns the response
 	 * 
@@ -257,4 +533,383 @@ public final class RestTemplateUtil {
 
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Sends the given call with the method that matches its HTTP method
+	 * 
+	 * @param <T>          ResponseEntity type
+	 * @param restTemplate the rest template to be used
+	 * @param call         the call to be sent
+	 * @return ResponseEntity<T>
+	 */
+	public static <T> ResponseEntity<T> exchange(RestTemplate restTemplate, RestCall<T> call) {
+
+		HttpMethod method = call.getMethod();
+
+		if (HttpMethod.GET.equals(method))
+			return get(restTemplate, call.getUrl(), call.getType(), call.getHeaders());
+
+		if (HttpMethod.POST.equals(method))
+			return post(restTemplate, call.getUrl(), call.getBody(), call.getType(), call.getHeaders());
+
+		if (HttpMethod.PUT.equals(method))
+			return put(restTemplate, call.getUrl(), call.getBody(), call.getType(), call.getHeaders());
+
+		if (HttpMethod.DELETE.equals(method))
+			return delete(restTemplate, call.getUrl(), call.getBody(), call.getType(), call.getHeaders());
+
+		throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+
+	}
+
+	/**
+	 * Sends the given calls in parallel and waits for all of them, up to the deadline. The calls
+	 * still in progress when the deadline is reached are cancelled and reported as timed out,
+	 * so a slow dependency does not delay the rest of the results
+	 * 
+	 * @param <T>            ResponseEntity type
+	 * @param restTemplate   the rest template to be used
+	 * @param calls          the calls to be sent
+	 * @param maxConcurrency maximum number of calls in progress at the same time
+	 * @param deadline       maximum time to wait for all the calls
+	 * @return the result of every call, on the same order as the calls
+	 */
+	public static <T> List<RestCallResult<T>> fanOut(RestTemplate restTemplate, List<RestCall<T>> calls,
+			int maxConcurrency, Duration deadline) {
+
+		// Preconditions
+		Preconditions.checkArgument(maxConcurrency > 0, "Max concurrency must be positive");
+
+		long deadlineNanos = System.nanoTime() + deadline.toNanos();
+		Semaphore permits = new Semaphore(maxConcurrency);
+
+		List<Future<ResponseEntity<T>>> futures = new ArrayList<>(calls.size());
+
+		for (RestCall<T> call : calls) {
+
+			futures.add(FAN_OUT_EXECUTOR.submit(() -> {
+
+				permits.acquire();
+
+				try {
+					return exchange(restTemplate, call);
+				} finally {
+					permits.release();
+				}
+			}));
+		}
+
+		List<RestCallResult<T>> results = new ArrayList<>(calls.size());
+
+		for (int i = 0; i < calls.size(); i++) {
+
+			RestCall<T> call = calls.get(i);
+			Future<ResponseEntity<T>> future = futures.get(i);
+
+			try {
+
+				long remaining = Math.max(0L, deadlineNanos - System.nanoTime());
+				results.add(new RestCallResult<>(call, future.get(remaining, TimeUnit.NANOSECONDS), null));
+
+			} catch (TimeoutException e) {
+
+				future.cancel(true);
+				LOGGER.info("Deadline exceeded on {}: {}", call.getMethod(), call.getUrl());
+				results.add(new RestCallResult<>(call, null,
+						new TimeoutException("Deadline exceeded on " + call.getMethod() + ": " + call.getUrl())));
+
+			} catch (ExecutionException e) {
+
+				results.add(new RestCallResult<>(call, null, e.getCause()));
+
+			} catch (InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+				future.cancel(true);
+				results.add(new RestCallResult<>(call, null, e));
+			}
+		}
+
+		return results;
+
+	}
+
+	/**
+	 * Sends a GET HTTP request and, if the response does not arrive within the delay of the
+	 * policy, sends the same request again. The first successful response is returned and the
+	 * other request is cancelled. The hedges are only sent while the budget of the policy
+	 * allows it
+	 * 
+	 * @param <T>          ResponseEntity type
+	 * @param restTemplate the rest template to be used
+	 * @param url          URL to send the request
+	 * @param type         ResponseEntity type
+	 * @param headers      headers for the request
+	 * @param policy       the hedging policy, shared by the requests to the same service
+	 * @return ResponseEntity<T>
+	 */
+	public static <T> ResponseEntity<T> getHedged(RestTemplate restTemplate, String url,
+			ParameterizedTypeReference<T> type, HttpHeaders headers, HedgingPolicy policy) {
+
+		// Preconditions
+		Preconditions.checkArgument(url != null && !url.isEmpty(), CHECK_URL_MESSAGE);
+		Preconditions.checkNotNull(policy, "Hedging policy must not be null");
+
+		policy.onRequest();
+
+		CompletableFuture<ResponseEntity<T>> result = new CompletableFuture<>();
+		AtomicInteger pending = new AtomicInteger(1);
+
+		Future<?> primary = FAN_OUT_EXECUTOR
+				.submit(() -> hedgeAttempt(restTemplate, url, type, headers, policy, result, pending, false));
+		Future<?> hedge = null;
+
+		try {
+
+			try {
+
+				return result.get(policy.getDelay().toNanos(), TimeUnit.NANOSECONDS);
+
+			} catch (TimeoutException e) {
+
+				// The hedge is only sent if the original request has not ended meanwhile, otherwise
+				// its budget is given back
+				if (policy.tryAcquireHedge()) {
+
+					if (!result.isDone() && pending.getAndUpdate(n -> n > 0 ? n + 1 : n) > 0) {
+
+						LOGGER.debug("Hedging GET: {}", url);
+						hedge = FAN_OUT_EXECUTOR
+								.submit(() -> hedgeAttempt(restTemplate, url, type, headers, policy, result, pending, true));
+
+					} else {
+
+						policy.releaseHedge();
+					}
+				}
+
+				return result.get();
+			}
+
+		} catch (ExecutionException e) {
+
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+
+			throw new RuntimeException(e.getCause());
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+
+		} finally {
+
+			primary.cancel(true);
+
+			if (hedge != null)
+				hedge.cancel(true);
+		}
+
+	}
+
+	/**
+	 * Sends a GET HTTP request through the given response cache. The fresh responses are
+	 * returned from the cache, the stale ones are revalidated with their ETag and the rest
+	 * are requested and stored, if their headers allow it
+	 * 
+	 * @param <T>          ResponseEntity type
+	 * @param restTemplate the rest template to be used
+	 * @param url          URL to send the request
+	 * @param type         ResponseEntity type
+	 * @param headers      headers for the request
+	 * @param cache        the response cache
+	 * @return ResponseEntity<T>, the body must not be modified
+	 */
+	public static <T> ResponseEntity<T> getCached(RestTemplate restTemplate, String url,
+			ParameterizedTypeReference<T> type, HttpHeaders headers, HttpResponseCache cache) {
+
+		// Preconditions
+		Preconditions.checkArgument(url != null && !url.isEmpty(), CHECK_URL_MESSAGE);
+		Preconditions.checkNotNull(cache, "Response cache must not be null");
+
+		String key = HttpResponseCache.key(url, type, headers);
+		HttpResponseCache.CachedResponse<T> cached = cache.get(key);
+
+		if (cached != null && cached.isFresh()) {
+
+			cache.onHit();
+			return cached.getResponse();
+		}
+
+		HttpHeaders requestHeaders = new HttpHeaders();
+
+		if (headers != null)
+			requestHeaders.addAll(headers);
+
+		if (cached != null && cached.getEtag() != null)
+			requestHeaders.setIfNoneMatch(cached.getEtag());
+
+		ResponseEntity<T> response = get(restTemplate, url, type, requestHeaders);
+
+		if (cached != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+
+			cache.onRevalidation();
+			return cache.renew(key, cached, response.getHeaders()).getResponse();
+		}
+
+		cache.onMiss();
+
+		if (response.getStatusCode().is2xxSuccessful())
+			cache.put(key, response);
+
+		return response;
+
+	}
+
+	/**
+	 * Sends a GET HTTP request, or waits for the response of the identical request already in
+	 * progress, so concurrent identical requests share a single call and a single response
+	 * 
+	 * @param <T>          ResponseEntity type
+	 * @param restTemplate the rest template to be used
+	 * @param url          URL to send the request
+	 * @param type         ResponseEntity type
+	 * @param headers      headers for the request
+	 * @param singleFlight the coalescer of the requests
+	 * @return ResponseEntity<T>, the body must not be modified
+	 */
+	public static <T> ResponseEntity<T> getCoalesced(RestTemplate restTemplate, String url,
+			ParameterizedTypeReference<T> type, HttpHeaders headers, SingleFlight singleFlight) {
+
+		// Preconditions
+		Preconditions.checkArgument(url != null && !url.isEmpty(), CHECK_URL_MESSAGE);
+		Preconditions.checkNotNull(singleFlight, "Single flight must not be null");
+
+		return singleFlight.execute(singleFlight.key(HttpMethod.GET, url, type, headers),
+				() -> get(restTemplate, url, type, headers));
+
+	}
+
+	/**
+	 * Sends a GET HTTP request for a collection and passes its elements to the consumer while
+	 * the response is downloaded, instead of building the whole collection. The response may
+	 * be a plain JSON array or a HAL collection
+	 * 
+	 * @param <T>          element type
+	 * @param restTemplate the rest template to be used
+	 * @param url          URL to send the request
+	 * @param elementType  type of the elements of the collection
+	 * @param headers      headers for the request
+	 * @param consumer     consumer of the elements, called on the order of the collection
+	 * @return the number of elements read
+	 */
+	public static <T> long getStreaming(RestTemplate restTemplate, String url,
+			ParameterizedTypeReference<T> elementType, HttpHeaders headers, Consumer<? super T> consumer) {
+
+		// Preconditions
+		Preconditions.checkArgument(url != null && !url.isEmpty(), CHECK_URL_MESSAGE);
+		Preconditions.checkNotNull(consumer, "Consumer must not be null");
+
+		ObjectMapper mapper = jsonMapper(restTemplate);
+		JsonStreamExtractor<T> extractor = new JsonStreamExtractor<>(mapper,
+				mapper.constructType(elementType.getType()), consumer);
+
+		RequestCallback callback = request -> {
+
+			if (headers != null)
+				request.getHeaders().addAll(headers);
+
+			if (request.getHeaders().getAccept().isEmpty())
+				request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON, HAL_JSON));
+		};
+
+		try {
+
+			Long count = restTemplate.execute(UriComponentsBuilder.fromHttpUrl(url).build().toUri(), HttpMethod.GET,
+					callback, extractor);
+
+			return (count != null) ? count : 0L;
+
+		} catch (HttpClientErrorException e) {
+
+			LOGGER.info("Client error on GET: {}. Error code: {}", url, e.getStatusCode().value());
+			throw e;
+
+		} catch (HttpServerErrorException e) {
+
+			LOGGER.info("Server error on GET: {}. Error code: {}", url, e.getStatusCode().value());
+			throw e;
+
+		}
+
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private static <T> void hedgeAttempt(RestTemplate restTemplate, String url, ParameterizedTypeReference<T> type,
+			HttpHeaders headers, HedgingPolicy policy, CompletableFuture<ResponseEntity<T>> result,
+			AtomicInteger pending, boolean isHedge) {
+
+		long start = System.nanoTime();
+
+		try {
+
+			ResponseEntity<T> response = get(restTemplate, url, type, headers);
+			long latency = System.nanoTime() - start;
+
+			// Completed before anything else, so the caller never waits on a failed bookkeeping
+			if (result.complete(response) && isHedge)
+				policy.onHedgeWin();
+
+			policy.record(latency);
+
+		} catch (Throwable e) {
+
+			// The error is only returned when no other request can succeed
+			if (pending.decrementAndGet() == 0)
+				result.completeExceptionally(e);
+		}
+
+	}
+
+	/**
+	 * Returns the JSON mapper of the rest template, so the elements are read with the same
+	 * configuration as the rest of its responses
+	 */
+	private static ObjectMapper jsonMapper(RestTemplate restTemplate) {
+
+		for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+
+			if (converter instanceof MappingJackson2HttpMessageConverter)
+				return ((MappingJackson2HttpMessageConverter) converter).getObjectMapper();
+		}
+
+		return STREAMING_MAPPER;
+
+	}
+
+	private static ExecutorService createFanOutExecutor() {
+
+		try {
+
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+
+		} catch (ReflectiveOperationException e) {
+
+			AtomicInteger counter = new AtomicInteger();
+
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "rest-fan-out-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,180 @@
+package es.common.util;
+
+import java.security.PrivateKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Token issuer configured once with the issuer, the signing key and the default claims, for the
+ * services that issue many tokens with the same configuration, as
+ * {@link TokenUtils#generateTokenFromUsername} does on every call.<br><br>
+ *
+ * The signature algorithm is resolved and the key checked once, when the issuer is built, but
+ * every token is still built, serialized and signed from scratch by jjwt: the header and the
+ * default claims are not reused between tokens. The cost of a token is mostly its signature,
+ * so the throughput is the one of jjwt with the same key. The tokens are signed with
+ * RS256/384/512 (RSA keys, by key size) or ES256/384/512 (EC keys, by curve). The registered
+ * claims (issuer, subject and dates) are always set by the issuer, and can not be overridden by
+ * the default or the additional claims. The batches share the issue date of their tokens.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class TokenIssuer {
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final String issuer;
+
+	private final PrivateKey privateKey;
+
+	@Nullable
+	private final String keyId;
+
+	private final long secDuration;
+
+	private final Map<String, Object> defaultClaims;
+
+	private final SecureDigestAlgorithm<PrivateKey, ?> algorithm;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param issuer the issuer of the tokens
+	 * @param privateKey the signing key, RSA (2048 bits or more) or EC
+	 * @param keyId the key identifier to be stamped on the header, may be null
+	 * @param secDuration duration of the tokens, in seconds
+	 * @param defaultClaims claims added to every token
+	 * @throws IllegalArgumentException if the key is not supported
+	 */
+	public TokenIssuer(@NotNull String issuer, @NotNull PrivateKey privateKey, @Nullable String keyId,
+			@Positive long secDuration, @NotNull Map<String, Object> defaultClaims) {
+
+		this.issuer = issuer;
+		this.privateKey = privateKey;
+		this.keyId = keyId;
+		this.secDuration = secDuration;
+		this.defaultClaims = Collections.unmodifiableMap(new LinkedHashMap<>(defaultClaims));
+		this.algorithm = resolveAlgorithm(privateKey);
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Issues a token for the given user, issued now
+	 *
+	 * @param username the subject of the token
+	 * @param additionalClaims claims added to the token, besides the default ones
+	 * @return the signed token
+	 */
+	public String issue(@NotNull String username, @Nullable Map<String, Object> additionalClaims) {
+
+		return issue(username, UtcClock.now(), additionalClaims);
+	}
+
+	/**
+	 * Issues a token for the given user
+	 *
+	 * @param username the subject of the token
+	 * @param issuedAt the issue date, it is also the not before date
+	 * @param additionalClaims claims added to the token, besides the default ones
+	 * @return the signed token
+	 */
+	public String issue(@NotNull String username, @NotNull ZonedDateTime issuedAt,
+			@Nullable Map<String, Object> additionalClaims) {
+
+		Instant issuedAtInstant = issuedAt.toInstant();
+		Date issuedAtDate = Date.from(issuedAtInstant);
+
+		JwtBuilder builder = Jwts.builder();
+
+		if (keyId != null)
+			builder.header().keyId(keyId);
+
+		builder.claims(defaultClaims);
+
+		if (additionalClaims != null && !additionalClaims.isEmpty())
+			builder.claims(additionalClaims);
+
+		// The registered claims go last, so they are never overridden
+		return builder
+				.issuer(issuer)
+				.subject(username)
+				.notBefore(issuedAtDate)
+				.issuedAt(issuedAtDate)
+				.expiration(Date.from(issuedAtInstant.plusSeconds(secDuration)))
+				.signWith(privateKey, algorithm)
+				.compact();
+	}
+
+	/**
+	 * Issues a batch of tokens, all of them issued at the same moment
+	 *
+	 * @param claimsByUsername the additional claims of every user
+	 * @return the signed tokens, indexed by the username and on the same order
+	 */
+	public Map<String, String> issueAll(@NotNull Map<String, Map<String, Object>> claimsByUsername) {
+
+		ZonedDateTime issuedAt = UtcClock.now();
+		Map<String, String> tokens = new LinkedHashMap<>(claimsByUsername.size() * 2);
+
+		claimsByUsername.forEach((username, claims) -> tokens.put(username, issue(username, issuedAt, claims)));
+
+		return tokens;
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	/**
+	 * Returns the JWS algorithm for the given key, the same one that jjwt chooses for it
+	 */
+	private static SecureDigestAlgorithm<PrivateKey, ?> resolveAlgorithm(PrivateKey privateKey) {
+
+		if (privateKey instanceof RSAPrivateKey) {
+
+			int bits = ((RSAPrivateKey) privateKey).getModulus().bitLength();
+
+			if (bits >= 4096) return Jwts.SIG.RS512;
+			if (bits >= 3072) return Jwts.SIG.RS384;
+			if (bits >= 2048) return Jwts.SIG.RS256;
+
+			throw new IllegalArgumentException("RSA keys must have at least 2048 bits");
+		}
+
+		if (privateKey instanceof ECPrivateKey) {
+
+			int bits = ((ECPrivateKey) privateKey).getParams().getCurve().getField().getFieldSize();
+
+			if (bits == 256) return Jwts.SIG.ES256;
+			if (bits == 384) return Jwts.SIG.ES384;
+			if (bits == 521) return Jwts.SIG.ES512;
+
+			throw new IllegalArgumentException("EC keys must use the P-256, P-384 or P-521 curves");
+		}
+
+		throw new IllegalArgumentException("Unsupported signing key: " + privateKey.getAlgorithm());
+	}
+
+}
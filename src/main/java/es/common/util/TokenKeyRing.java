@@ -0,0 +1,168 @@
+package es.common.util;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import io.jsonwebtoken.JweHeader;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Locator;
+import io.jsonwebtoken.LocatorAdapter;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Immutable set of public keys indexed by its key identifier ({@code kid} header).<br><br>
+ *
+ * While the keys are being rotated, several keys can be active at the same time. The tokens
+ * are signed with the key identifier on its header, and on validation the key is taken from
+ * the index, so the cost does not depend on the number of active keys. Tokens without key
+ * identifier are verified with the default key, if there is one. Two key rings with the same
+ * keys and default key are equal.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public final class TokenKeyRing {
+
+	private final Map<String, PublicKey> keys;
+
+	@Nullable
+	private final String defaultKeyId;
+
+	private final Locator<Key> locator = new LocatorAdapter<Key>() {
+
+		@Override
+		protected Key locate(JwsHeader header) {
+
+			return find(header.getKeyId());
+		}
+
+		@Override
+		protected Key locate(JweHeader header) {
+
+			throw new JwtException("Encrypted tokens are not supported");
+		}
+	};
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param keys the public keys, indexed by its key identifier
+	 * @param defaultKeyId the key identifier used for the tokens without it, may be null
+	 */
+	public TokenKeyRing(@NotNull Map<String, PublicKey> keys, @Nullable String defaultKeyId) {
+
+		if (defaultKeyId != null && !keys.containsKey(defaultKeyId))
+			throw new IllegalArgumentException("The default key id " + defaultKeyId + " is not on the key ring");
+
+		this.keys = Collections.unmodifiableMap(new HashMap<>(keys));
+		this.defaultKeyId = defaultKeyId;
+	}
+
+	/**
+	 * @param keys the public keys, indexed by its key identifier
+	 */
+	public TokenKeyRing(@NotNull Map<String, PublicKey> keys) {
+
+		this(keys, null);
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Returns a new key ring with the given key added (or replaced)
+	 *
+	 * @param keyId the key identifier
+	 * @param publicKey the public key
+	 * @return the new key ring
+	 */
+	public TokenKeyRing with(@NotNull String keyId, @NotNull PublicKey publicKey) {
+
+		Map<String, PublicKey> newKeys = new HashMap<>(keys);
+		newKeys.put(keyId, publicKey);
+
+		return new TokenKeyRing(newKeys, defaultKeyId);
+	}
+
+	/**
+	 * Returns a new key ring without the given key
+	 *
+	 * @param keyId the key identifier
+	 * @return the new key ring
+	 */
+	public TokenKeyRing without(@NotNull String keyId) {
+
+		Map<String, PublicKey> newKeys = new HashMap<>(keys);
+		newKeys.remove(keyId);
+
+		return new TokenKeyRing(newKeys, keyId.equals(defaultKeyId) ? null : defaultKeyId);
+	}
+
+	/**
+	 * Returns the key linked to the given key identifier
+	 *
+	 * @param keyId the key identifier of the token, may be null
+	 * @return the public key
+	 * @throws JwtException if there is no key for the identifier
+	 */
+	public PublicKey find(@Nullable String keyId) {
+
+		String id = (keyId == null) ? defaultKeyId : keyId;
+		PublicKey key = (id == null) ? null : keys.get(id);
+
+		if (key == null)
+			throw new JwtException("Token key id is not known: " + keyId);
+
+		return key;
+	}
+
+	/**
+	 * Returns the active keys
+	 *
+	 * @return the public keys, indexed by its key identifier
+	 */
+	public Map<String, PublicKey> getKeys() {
+
+		return keys;
+	}
+
+	/**
+	 * Returns the locator to be used by the JWT parsers
+	 *
+	 * @return the key locator
+	 */
+	public Locator<Key> locator() {
+
+		return locator;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+
+		if (this == obj)
+			return true;
+
+		if (!(obj instanceof TokenKeyRing))
+			return false;
+
+		TokenKeyRing other = (TokenKeyRing) obj;
+
+		return keys.equals(other.keys) && Objects.equals(defaultKeyId, other.defaultKeyId);
+	}
+
+	@Override
+	public int hashCode() {
+
+		return 31 * keys.hashCode() + Objects.hashCode(defaultKeyId);
+	}
+
+}
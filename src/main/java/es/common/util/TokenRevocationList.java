@@ -0,0 +1,301 @@
+package es.common.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.apachecommons.CommonsLog;
+
+/**
+ * In-memory list of the revoked tokens (by token id, the {@code jti} claim) and of the revoked
+ * subjects (every token of the subject, for example when the user is locked).<br><br>
+ *
+ * The lookups go first through a Bloom filter, so most of the checks of valid tokens end there
+ * without touching the exact sets, which are only used to rule out the false positives. The
+ * lookups do not allocate. The list is refreshed incrementally from a {@link RevocationSource},
+ * calling {@link #refresh()} periodically.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@CommonsLog
+public class TokenRevocationList {
+
+	// #############
+	// # Constants #
+	// #############
+
+	/**
+	 * Seeds used to keep the token ids and the subjects apart on the same filter
+	 */
+	private static final long TOKEN_SEED = 0x9E3779B97F4A7C15L;
+	private static final long SUBJECT_SEED = 0xC2B2AE3D27D4EB4FL;
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final RevocationSource source;
+
+	private final int expectedRevocations;
+
+	private final double falsePositiveRate;
+
+	private final Set<String> revokedTokenIds = ConcurrentHashMap.newKeySet();
+
+	private final Set<String> revokedSubjects = ConcurrentHashMap.newKeySet();
+
+	private volatile BloomFilter filter;
+
+	private long version;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * @param source the source of the revocations
+	 * @param expectedRevocations number of revocations expected to be held at the same time
+	 * @param falsePositiveRate rate of lookups of valid tokens that need the exact sets (0 to 1)
+	 */
+	public TokenRevocationList(@NotNull RevocationSource source, int expectedRevocations, double falsePositiveRate) {
+
+		if (expectedRevocations < 1 || falsePositiveRate <= 0d || falsePositiveRate >= 1d)
+			throw new IllegalArgumentException("Invalid Bloom filter dimensions");
+
+		this.source = source;
+		this.expectedRevocations = expectedRevocations;
+		this.falsePositiveRate = falsePositiveRate;
+		this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Indicates if the token is revoked, by its id or by its subject
+	 *
+	 * @param tokenId the token id, may be null
+	 * @param subject the subject of the token, may be null
+	 * @return true if the token is revoked
+	 */
+	public boolean isRevoked(@Nullable String tokenId, @Nullable String subject) {
+
+		BloomFilter current = filter;
+
+		return (tokenId != null && current.mightContain(TOKEN_SEED, tokenId) && revokedTokenIds.contains(tokenId))
+				|| (subject != null && current.mightContain(SUBJECT_SEED, subject) && revokedSubjects.contains(subject));
+	}
+
+	/**
+	 * Checks that the token of the given claims is not revoked
+	 *
+	 * @param claims the claims of a validated token
+	 * @throws JwtException if the token is revoked
+	 */
+	public void check(@NotNull Claims claims) {
+
+		if (isRevoked(claims.getId(), claims.getSubject())) {
+
+			log.info("JWT token is revoked: " + claims.getSubject());
+			throw new JwtException("Token has been revoked");
+		}
+	}
+
+	/**
+	 * Revokes the token with the given id
+	 *
+	 * @param tokenId the token id
+	 */
+	public void revokeToken(@NotNull String tokenId) {
+
+		revokedTokenIds.add(tokenId);
+		filter.put(TOKEN_SEED, tokenId);
+	}
+
+	/**
+	 * Revokes all the tokens of the given subject
+	 *
+	 * @param subject the subject
+	 */
+	public void revokeSubject(@NotNull String subject) {
+
+		revokedSubjects.add(subject);
+		filter.put(SUBJECT_SEED, subject);
+	}
+
+	/**
+	 * Forgets a revoked token, usually because it has already expired
+	 *
+	 * @param tokenId the token id
+	 */
+	public void forgetToken(@NotNull String tokenId) {
+
+		revokedTokenIds.remove(tokenId);
+	}
+
+	/**
+	 * Restores the tokens of the given subject, for example when the user is unlocked
+	 *
+	 * @param subject the subject
+	 */
+	public void restoreSubject(@NotNull String subject) {
+
+		revokedSubjects.remove(subject);
+	}
+
+	/**
+	 * Applies the revocations registered on the source since the last refresh
+	 */
+	public synchronized void refresh() {
+
+		version = source.fetchSince(version, this);
+
+		// The removed entries stay on the filter, it is rebuilt once it gets too full
+		BloomFilter current = filter;
+
+		if (revokedTokenIds.size() + revokedSubjects.size() > current.capacity
+				|| current.insertions() > 2L * current.capacity)
+			rebuild();
+	}
+
+	/**
+	 * Rebuilds the filter from the exact sets, dropping the removed entries and growing it
+	 * if there are more revocations than expected
+	 */
+	public synchronized void rebuild() {
+
+		int size = Math.max(expectedRevocations, 2 * (revokedTokenIds.size() + revokedSubjects.size()));
+		BloomFilter rebuilt = new BloomFilter(size, falsePositiveRate);
+
+		revokedTokenIds.forEach(id -> rebuilt.put(TOKEN_SEED, id));
+		revokedSubjects.forEach(subject -> rebuilt.put(SUBJECT_SEED, subject));
+
+		// Entries revoked while rebuilding may have gone to the old filter, so they are added again
+		filter = rebuilt;
+		revokedTokenIds.forEach(id -> rebuilt.put(TOKEN_SEED, id));
+		revokedSubjects.forEach(subject -> rebuilt.put(SUBJECT_SEED, subject));
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Source of the revocations
+	 */
+	@FunctionalInterface
+	public interface RevocationSource {
+
+		/**
+		 * Applies on the target the revocations registered after the given version
+		 *
+		 * @param version the last version applied, 0 on the first call
+		 * @param target the list where the changes must be applied
+		 * @return the new version
+		 */
+		long fetchSince(long version, TokenRevocationList target);
+	}
+
+	/**
+	 * Bloom filter over strings, safe for concurrent use
+	 */
+	private static final class BloomFilter {
+
+		private final AtomicLongArray bits;
+		private final long bitCount;
+		private final int hashCount;
+		private final int capacity;
+		private final LongAdder insertions = new LongAdder();
+
+		BloomFilter(int expectedInsertions, double falsePositiveRate) {
+
+			long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+			int words = (int) Math.max(1L, (m + 63) >>> 6);
+
+			this.capacity = expectedInsertions;
+			this.bits = new AtomicLongArray(words);
+			this.bitCount = (long) words << 6;
+			this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+		}
+
+		void put(long seed, String value) {
+
+			long hash1 = hash(seed, value);
+			long hash2 = mix(hash1) | 1L;
+
+			for (int i = 0; i < hashCount; i++) {
+
+				long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+				int word = (int) (bit >>> 6);
+				long mask = 1L << bit;
+				long current;
+
+				while (((current = bits.get(word)) & mask) == 0
+						&& !bits.compareAndSet(word, current, current | mask)) {
+					// Retry until the bit is set
+				}
+			}
+
+			insertions.increment();
+		}
+
+		boolean mightContain(long seed, String value) {
+
+			long hash1 = hash(seed, value);
+			long hash2 = mix(hash1) | 1L;
+
+			for (int i = 0; i < hashCount; i++) {
+
+				long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+
+				if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+					return false;
+			}
+
+			return true;
+		}
+
+		long insertions() {
+
+			return insertions.sum();
+		}
+
+		/**
+		 * FNV-1a over the characters of the string, read in place
+		 */
+		private static long hash(long seed, String value) {
+
+			long hash = 0xCBF29CE484222325L ^ seed;
+
+			for (int i = 0; i < value.length(); i++) {
+
+				hash ^= value.charAt(i);
+				hash *= 0x100000001B3L;
+			}
+
+			return mix(hash);
+		}
+
+		/**
+		 * Final mixer of MurmurHash3
+		 */
+		private static long mix(long hash) {
+
+			hash ^= hash >>> 33;
+			hash *= 0xFF51AFD7ED558CCDL;
+			hash ^= hash >>> 33;
+			hash *= 0xC4CEB9FE1A85EC53L;
+			hash ^= hash >>> 33;
+
+			return hash;
+		}
+	}
+
+}
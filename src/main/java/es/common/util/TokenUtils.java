@@ -9,19 +9,15 @@ import java.util.HashMap;
 import java.util.Map;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.UnsupportedJwtException;
-import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.Nullable;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
-import lombok.extern.apachecommons.CommonsLog;
 
-@CommonsLog
 public class TokenUtils {
 
 	public static final String HEADER = "Authorization";
@@ -32,6 +28,11 @@ public class TokenUtils {
 	public final static String PERMISSIONS_GRANTED = "permissionsGranted";
 	public final static String PERMISSIONS_REVOKED = "permissionsRevoked";
 	
+	/**
+	 * Validator shared by the static methods, it reuses the parsers and the verified tokens
+	 */
+	private static final TokenValidator DEFAULT_VALIDATOR = new TokenValidator();
+	
 	/**
 	 * Receive a token and a public key and return the claims of the token
 	 * 
@@ -48,53 +49,56 @@ public class TokenUtils {
 	
 	public static Claims validateToken(@NotBlank String jwtToken, @NotNull PublicKey publicKey, @PositiveOrZero Long clockSkewSeconds) {
 		
-		Claims claims = null;
-		
-		try {
-			
-			claims = Jwts
-					.parser()
-					.verifyWith(publicKey)
-					.clockSkewSeconds(clockSkewSeconds)
-					.build()
-					.parseSignedClaims(jwtToken)
-					.getPayload();
-			
-		} catch (SignatureException e) {
-			log.info("Invalid JWT signature: " + e.getMessage());
-			throw new JwtException("Token cant be verified against the signature", e);
-		
-		} catch (MalformedJwtException e) {
-			log.info("Invalid JWT token: " + e.getMessage());
-			throw new JwtException("Token is not well formatted", e);
-		
-		} catch (ExpiredJwtException e) {
-			log.info("JWT token is expired: " + e.getMessage());
-			throw new JwtException("Token has expired", e);
-		
-		} catch (UnsupportedJwtException e) {
-			log.info("JWT token is unsupported: " + e.getMessage());
-			throw new JwtException("Token is not valid", e);
-		
-		} catch (IllegalArgumentException e) {
-			log.info("JWT claims string is empty: " + e.getMessage());
-			throw new JwtException("Token is not valid", e);
+		return DEFAULT_VALIDATOR.validate(jwtToken, publicKey, clockSkewSeconds);
+	}
+	
+	/**
+	 * Receive a token and the active public keys and return the claims of the token. The key
+	 * is chosen by the key identifier of the token header
+	 * 
+	 * @param jwtToken string with the token
+	 * @param keyRing the active public keys
+	 * @throws JwtException if the token validation fails, encapsulating the internal exception
+	 * @return
+	 */
+	public static Claims validateToken(@NotBlank String jwtToken, @NotNull TokenKeyRing keyRing) {
 		
-		}
+		return validateToken(jwtToken, keyRing, 0L);
+	}
+	
+	public static Claims validateToken(@NotBlank String jwtToken, @NotNull TokenKeyRing keyRing, @PositiveOrZero Long clockSkewSeconds) {
 		
-		return claims;
+		return DEFAULT_VALIDATOR.validate(jwtToken, keyRing, clockSkewSeconds);
 	}
 	
 	public static String generateTokenFromUsername(@NotNull String username,
 			@NotNull String issuer, @NotNull @Valid ZonedDateTime issuedAt,
 			@Valid Long secDuration, @NotNull @Valid Map<String, Object> additionalClaims,
 			PrivateKey privateKey) {
+		
+		return generateTokenFromUsername(username, issuer, issuedAt, 
+				secDuration, additionalClaims, privateKey, null);
+	}
+	
+	/**
+	 * Generates a token signed with the given key. If the key identifier is received,
+	 * it is stamped on the token header so the validation can pick the key from a {@link TokenKeyRing}
+	 */
+	public static String generateTokenFromUsername(@NotNull String username,
+			@NotNull String issuer, @NotNull @Valid ZonedDateTime issuedAt,
+			@Valid Long secDuration, @NotNull @Valid Map<String, Object> additionalClaims,
+			PrivateKey privateKey, @Nullable String keyId) {
 	    
 		Instant issuedAtInstant = issuedAt.toInstant();
 		if (additionalClaims == null) additionalClaims = new HashMap<>();
 		
-		return Jwts.builder()
-				.issuer("PM")
+		JwtBuilder builder = Jwts.builder();
+		
+		if (keyId != null)
+			builder.header().keyId(keyId);
+		
+		return builder
+				.issuer(issuer)
 	    		.subject(username)
 	    		.notBefore(Date.from(issuedAtInstant))
 	    		.issuedAt(Date.from(issuedAtInstant))
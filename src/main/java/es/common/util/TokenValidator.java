@@ -0,0 +1,409 @@
+package es.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.extern.apachecommons.CommonsLog;
+
+/**
+ * Reusable JWT validator.<br><br>
+ *
+ * The parsers are built once per public key (or key ring content) and clock skew, and the
+ * tokens already verified are kept on a bounded cache (indexed by the SHA-256 digest of the
+ * token) until they expire, so a token received several times is only verified against its
+ * signature once. Tokens without expiration are never cached. Both caches discard the least
+ * recently used entries, so the parsers of rotated keys and their tokens are dropped once
+ * they are no longer used. If a {@link TokenRevocationList} is plugged in, it is checked on
+ * every validation.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@CommonsLog
+public class TokenValidator {
+
+	// #############
+	// # Constants #
+	// #############
+
+	/**
+	 * Default maximum number of verified tokens kept on the cache
+	 */
+	public static final int DEFAULT_MAX_CACHED_TOKENS = 10_000;
+
+	/**
+	 * Maximum number of parsers kept, that is, of different keys and clock skews in use
+	 */
+	public static final int MAX_CACHED_PARSERS = 64;
+
+	/**
+	 * Number of independently locked segments of the token cache
+	 */
+	private static final int TOKEN_CACHE_SEGMENTS = 16;
+
+	private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	});
+
+	// ##############
+	// # Properties #
+	// ##############
+
+	private final int maxCachedTokens;
+
+	@Nullable
+	private final TokenRevocationList revocationList;
+
+	private final LruCache<ParserKey, JwtParser> parsers = new LruCache<>(MAX_CACHED_PARSERS, 1);
+
+	private final LruCache<TokenKey, VerifiedToken> verifiedTokens;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	public TokenValidator() {
+
+		this(DEFAULT_MAX_CACHED_TOKENS);
+	}
+
+	/**
+	 * @param maxCachedTokens maximum number of verified tokens kept on the cache, 0 to disable it
+	 */
+	public TokenValidator(@PositiveOrZero int maxCachedTokens) {
+
+		this(maxCachedTokens, null);
+	}
+
+	/**
+	 * @param maxCachedTokens maximum number of verified tokens kept on the cache, 0 to disable it
+	 * @param revocationList list checked on every validation, cached tokens included. May be null
+	 */
+	public TokenValidator(@PositiveOrZero int maxCachedTokens, @Nullable TokenRevocationList revocationList) {
+
+		this.maxCachedTokens = maxCachedTokens;
+		this.revocationList = revocationList;
+		this.verifiedTokens = new LruCache<>(Math.max(1, maxCachedTokens),
+				(maxCachedTokens < TOKEN_CACHE_SEGMENTS * 16) ? 1 : TOKEN_CACHE_SEGMENTS);
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Receive a token and a public key and return the claims of the token
+	 *
+	 * @param jwtToken string with the token
+	 * @param publicKey public key instance
+	 * @throws JwtException if the token validation fails, encapsulating the internal exception
+	 * @return the claims of the token
+	 */
+	public Claims validate(@NotBlank String jwtToken, @NotNull PublicKey publicKey) {
+
+		return validate(jwtToken, publicKey, 0L);
+	}
+
+	/**
+	 * Receive a token and a public key and return the claims of the token
+	 *
+	 * @param jwtToken string with the token
+	 * @param publicKey public key instance
+	 * @param clockSkewSeconds seconds of tolerance when checking the token dates
+	 * @throws JwtException if the token validation fails, encapsulating the internal exception
+	 * @return the claims of the token
+	 */
+	public Claims validate(@NotBlank String jwtToken, @NotNull PublicKey publicKey,
+			@PositiveOrZero Long clockSkewSeconds) {
+
+		ParserKey parserKey = new ParserKey(publicKey, clockSkewSeconds);
+
+		return validate(jwtToken, parserKey, () -> Jwts.parser()
+				.verifyWith(publicKey)
+				.clockSkewSeconds(clockSkewSeconds)
+				.build());
+	}
+
+	/**
+	 * Receive a token and a key ring and return the claims of the token. The token is verified
+	 * with the key of the ring linked to its key identifier. Key rings with the same keys share
+	 * the same parser and cached tokens
+	 *
+	 * @param jwtToken string with the token
+	 * @param keyRing the active public keys
+	 * @param clockSkewSeconds seconds of tolerance when checking the token dates
+	 * @throws JwtException if the token validation fails, encapsulating the internal exception
+	 * @return the claims of the token
+	 */
+	public Claims validate(@NotBlank String jwtToken, @NotNull TokenKeyRing keyRing,
+			@PositiveOrZero Long clockSkewSeconds) {
+
+		ParserKey parserKey = new ParserKey(keyRing, clockSkewSeconds);
+
+		return validate(jwtToken, parserKey, () -> Jwts.parser()
+				.keyLocator(keyRing.locator())
+				.clockSkewSeconds(clockSkewSeconds)
+				.build());
+	}
+
+	/**
+	 * Removes all the verified tokens and the parsers from the caches
+	 */
+	public void clearCache() {
+
+		verifiedTokens.clear();
+		parsers.clear();
+	}
+
+	// #####################
+	// # Protected methods #
+	// #####################
+
+	/**
+	 * Validates the token with the parser linked to the given key, building it if needed
+	 *
+	 * @param jwtToken string with the token
+	 * @param parserKey key of the parser, it must identify the verification keys and the clock skew
+	 * @param parserFactory builds the parser the first time the key is used
+	 * @return the claims of the token
+	 */
+	protected Claims validate(String jwtToken, ParserKey parserKey,
+			Supplier<JwtParser> parserFactory) {
+
+		TokenKey tokenKey = null;
+
+		if (maxCachedTokens > 0 && jwtToken != null) {
+
+			tokenKey = new TokenKey(digest(jwtToken), parserKey);
+			VerifiedToken cached = verifiedTokens.get(tokenKey);
+
+			if (cached != null) {
+
+				if (System.currentTimeMillis() < cached.expiresAtMillis)
+					return checkRevocation(cached.claims);
+
+				verifiedTokens.remove(tokenKey, cached);
+			}
+		}
+
+		JwtParser parser = parsers.get(parserKey);
+
+		// Parsers are immutable, so one built twice by concurrent calls is harmless
+		if (parser == null) {
+
+			parser = parserFactory.get();
+			parsers.put(parserKey, parser);
+		}
+
+		Claims claims = checkRevocation(parse(parser, jwtToken));
+
+		Date expiration = claims.getExpiration();
+
+		if (tokenKey != null && expiration != null)
+			verifiedTokens.put(tokenKey, new VerifiedToken(claims, expiration.getTime()));
+
+		return claims;
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private Claims checkRevocation(Claims claims) {
+
+		if (revocationList != null)
+			revocationList.check(claims);
+
+		return claims;
+	}
+
+	private static Claims parse(JwtParser parser, String jwtToken) {
+
+		try {
+
+			return parser.parseSignedClaims(jwtToken).getPayload();
+
+		} catch (SignatureException e) {
+			log.info("Invalid JWT signature: " + e.getMessage());
+			throw new JwtException("Token cant be verified against the signature", e);
+
+		} catch (MalformedJwtException e) {
+			log.info("Invalid JWT token: " + e.getMessage());
+			throw new JwtException("Token is not well formatted", e);
+
+		} catch (ExpiredJwtException e) {
+			log.info("JWT token is expired: " + e.getMessage());
+			throw new JwtException("Token has expired", e);
+
+		} catch (UnsupportedJwtException e) {
+			log.info("JWT token is unsupported: " + e.getMessage());
+			throw new JwtException("Token is not valid", e);
+
+		} catch (IllegalArgumentException e) {
+			log.info("JWT claims string is empty: " + e.getMessage());
+			throw new JwtException("Token is not valid", e);
+
+		}
+	}
+
+	private static byte[] digest(String jwtToken) {
+
+		return SHA_256.get().digest(jwtToken.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Identifies a parser: the verification keys and the clock skew. The keys must compare
+	 * equal by its content, as {@link PublicKey} and {@link TokenKeyRing} do
+	 */
+	protected record ParserKey(Object keys, long clockSkewSeconds) {
+	}
+
+	/**
+	 * Identifies a verified token: its digest and the parser that verified it
+	 */
+	private static final class TokenKey {
+
+		private final byte[] digest;
+		private final ParserKey parserKey;
+		private final int hash;
+
+		TokenKey(byte[] digest, ParserKey parserKey) {
+			this.digest = digest;
+			this.parserKey = parserKey;
+			this.hash = 31 * Arrays.hashCode(digest) + parserKey.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+
+			if (this == obj)
+				return true;
+
+			if (!(obj instanceof TokenKey))
+				return false;
+
+			TokenKey other = (TokenKey) obj;
+
+			return Arrays.equals(digest, other.digest) && parserKey.equals(other.parserKey);
+		}
+	}
+
+	/**
+	 * Cache that discards the least recently used entries, split into segments with their own
+	 * lock, so the lookups of different tokens seldom wait for each other and making room for
+	 * a new entry never scans the cache
+	 */
+	private static final class LruCache<K, V> {
+
+		private final Map<K, V>[] segments;
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		LruCache(int maxEntries, int segmentCount) {
+
+			int segmentSize = Math.max(1, (maxEntries + segmentCount - 1) / segmentCount);
+
+			this.segments = new Map[segmentCount];
+
+			for (int i = 0; i < segmentCount; i++) {
+
+				segments[i] = new LinkedHashMap<>(16, 0.75f, true) {
+
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+						return size() > segmentSize;
+					}
+				};
+			}
+		}
+
+		V get(K key) {
+
+			Map<K, V> segment = segmentOf(key);
+
+			synchronized (segment) {
+				return segment.get(key);
+			}
+		}
+
+		void put(K key, V value) {
+
+			Map<K, V> segment = segmentOf(key);
+
+			synchronized (segment) {
+				segment.put(key, value);
+			}
+		}
+
+		void remove(K key, V value) {
+
+			Map<K, V> segment = segmentOf(key);
+
+			synchronized (segment) {
+				segment.remove(key, value);
+			}
+		}
+
+		void clear() {
+
+			for (Map<K, V> segment : segments) {
+
+				synchronized (segment) {
+					segment.clear();
+				}
+			}
+		}
+
+		private Map<K, V> segmentOf(K key) {
+
+			int hash = key.hashCode();
+
+			return segments[Math.floorMod(hash ^ (hash >>> 16), segments.length)];
+		}
+	}
+
+	private static final class VerifiedToken {
+
+		private final Claims claims;
+		private final long expiresAtMillis;
+
+		VerifiedToken(Claims claims, long expiresAtMillis) {
+			this.claims = claims;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+package es.common.util;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Source of the current UTC time used by the common entities.<br><br>
+ *
+ * The clock can be replaced (for example, on tests) and a batch scope can be opened on the
+ * current thread, so all the entities written inside the scope share the same timestamp
+ * instead of asking the system clock once per entity.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public final class UtcClock {
+
+	// #############
+	// # Constants #
+	// #############
+
+	/**
+	 * UTC zone, resolved only once
+	 */
+	public static final ZoneId UTC = ZoneId.of("UTC");
+
+	/**
+	 * Timestamp shared by the batch opened on the current thread, if any
+	 */
+	private static final ThreadLocal<ZonedDateTime> BATCH_NOW = new ThreadLocal<>();
+
+	/**
+	 * Scope returned when a batch is already open on the thread, closing it does nothing
+	 */
+	private static final BatchScope NESTED_SCOPE = () -> { };
+
+	private static volatile Clock clock = Clock.system(UTC);
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * Default private constructor
+	 */
+	private UtcClock() {
+
+		throw new IllegalStateException("Utility class");
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Returns the current time on UTC, or the timestamp of the batch opened on the current thread
+	 *
+	 * @return the current time on UTC
+	 */
+	public static ZonedDateTime now() {
+
+		ZonedDateTime batchNow = BATCH_NOW.get();
+
+		return (batchNow != null)
+				? batchNow
+				: ZonedDateTime.now(clock);
+	}
+
+	/**
+	 * Replaces the clock used to obtain the current time. Its zone is always moved to UTC
+	 *
+	 * @param newClock the clock to be used
+	 */
+	public static void setClock(Clock newClock) {
+
+		clock = newClock.withZone(UTC);
+	}
+
+	/**
+	 * Restores the system clock
+	 */
+	public static void resetClock() {
+
+		clock = Clock.system(UTC);
+	}
+
+	/**
+	 * Opens a batch on the current thread. Until the returned scope is closed, {@link #now()}
+	 * returns the same timestamp. If a batch is already open, it is kept
+	 *
+	 * @return the scope to be closed when the batch ends
+	 */
+	public static BatchScope openBatch() {
+
+		if (BATCH_NOW.get() != null)
+			return NESTED_SCOPE;
+
+		BATCH_NOW.set(ZonedDateTime.now(clock));
+
+		return BATCH_NOW::remove;
+	}
+
+	/**
+	 * Runs the given action inside a batch
+	 *
+	 * @param <T> the result type
+	 * @param action the action to be run
+	 * @return the result of the action
+	 */
+	public static <T> T inBatch(Supplier<T> action) {
+
+		BatchScope scope = openBatch();
+
+		try {
+			return action.get();
+		} finally {
+			scope.close();
+		}
+	}
+
+	/**
+	 * Scope of a batch opened with {@link UtcClock#openBatch()}
+	 */
+	@FunctionalInterface
+	public interface BatchScope extends AutoCloseable {
+
+		@Override
+		void close();
+	}
+
+}
@@ -0,0 +1,233 @@
+package es.common.util;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Codec for the UTC timestamps exchanged on the DTOs, with the fixed ISO-8601 layout
+ * {@code yyyy-MM-ddTHH:mm:ss[.fraction]Z}.<br><br>
+ *
+ * The layout is read and written directly from the characters, without going through
+ * {@link DateTimeFormatter}. The output is the same as {@link DateTimeFormatter#ISO_INSTANT},
+ * and any text that does not follow the fixed layout (offsets, zone ids, years out of
+ * 0000-9999...) is delegated to {@link DateTimeFormatter#ISO_DATE_TIME}.
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public final class UtcTimestampCodec {
+
+	// #############
+	// # Constants #
+	// #############
+
+	private static final int SECONDS_PER_DAY = 86_400;
+
+	/**
+	 * Days from 0000-03-01 to 1970-01-01
+	 */
+	private static final long DAYS_0000_TO_1970 = 719_468L;
+
+	private static final int DAYS_PER_ERA = 146_097;
+
+	/**
+	 * Epoch seconds of 0000-01-01T00:00:00Z and 10000-01-01T00:00:00Z
+	 */
+	private static final long MIN_FAST_SECOND = -62_167_219_200L;
+	private static final long MAX_FAST_SECOND = 253_402_300_800L;
+
+	// ################
+	// # Constructors #
+	// ################
+
+	/**
+	 * Default private constructor
+	 */
+	private UtcTimestampCodec() {
+
+		throw new IllegalStateException("Utility class");
+	}
+
+	// ##################
+	// # Public methods #
+	// ##################
+
+	/**
+	 * Formats the given date as an UTC instant
+	 *
+	 * @param dateTime the date to be formatted
+	 * @return the formatted date, as {@link DateTimeFormatter#ISO_INSTANT} does
+	 */
+	public static String format(ZonedDateTime dateTime) {
+
+		long epochSecond = dateTime.toEpochSecond();
+		int nano = dateTime.getNano();
+
+		if (epochSecond < MIN_FAST_SECOND || epochSecond >= MAX_FAST_SECOND)
+			return DateTimeFormatter.ISO_INSTANT.format(dateTime);
+
+		long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+		int secondOfDay = Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+		// Civil date from the epoch day, with years starting on March
+		long z = epochDay + DAYS_0000_TO_1970;
+		long era = Math.floorDiv(z, DAYS_PER_ERA);
+		int dayOfEra = (int) (z - era * DAYS_PER_ERA);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int mp = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+		int month = mp < 10 ? mp + 3 : mp - 9;
+		int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+		int fractionDigits = (nano == 0) ? 0
+				: (nano % 1_000_000 == 0) ? 3
+				: (nano % 1_000 == 0) ? 6
+				: 9;
+
+		char[] buf = new char[20 + (fractionDigits == 0 ? 0 : fractionDigits + 1)];
+
+		writeDigits(buf, 0, year, 4);
+		buf[4] = '-';
+		writeDigits(buf, 5, month, 2);
+		buf[7] = '-';
+		writeDigits(buf, 8, day, 2);
+		buf[10] = 'T';
+		writeDigits(buf, 11, secondOfDay / 3600, 2);
+		buf[13] = ':';
+		writeDigits(buf, 14, (secondOfDay / 60) % 60, 2);
+		buf[16] = ':';
+		writeDigits(buf, 17, secondOfDay % 60, 2);
+
+		int pos = 19;
+
+		if (fractionDigits > 0) {
+
+			buf[pos++] = '.';
+			writeDigits(buf, pos, nano / pow10(9 - fractionDigits), fractionDigits);
+			pos += fractionDigits;
+		}
+
+		buf[pos] = 'Z';
+
+		return new String(buf);
+	}
+
+	/**
+	 * Parses the given ISO-8601 date
+	 *
+	 * @param text the date to be parsed
+	 * @return the parsed date. Dates on the fixed layout are returned on UTC
+	 * @throws java.time.format.DateTimeParseException if the text is not a valid ISO-8601 date
+	 */
+	public static ZonedDateTime parse(CharSequence text) {
+
+		ZonedDateTime parsed = parseFixedLayout(text);
+
+		return (parsed != null)
+				? parsed
+				: ZonedDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME);
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	/**
+	 * Parses the fixed layout
+	 *
+	 * @return the parsed date, or null if the text does not follow the fixed layout
+	 */
+	private static ZonedDateTime parseFixedLayout(CharSequence text) {
+
+		int length = text.length();
+
+		if (length < 20 || text.charAt(length - 1) != 'Z'
+				|| text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+				|| text.charAt(13) != ':' || text.charAt(16) != ':')
+			return null;
+
+		int year = readDigits(text, 0, 4);
+		int month = readDigits(text, 5, 2);
+		int day = readDigits(text, 8, 2);
+		int hour = readDigits(text, 11, 2);
+		int minute = readDigits(text, 14, 2);
+		int second = readDigits(text, 17, 2);
+
+		if ((year | month | day | hour | minute | second) < 0)
+			return null;
+
+		int nano = 0;
+
+		if (length > 20) {
+
+			int fractionDigits = length - 21;
+
+			if (text.charAt(19) != '.' || fractionDigits < 1 || fractionDigits > 9)
+				return null;
+
+			int fraction = readDigits(text, 20, fractionDigits);
+
+			if (fraction < 0)
+				return null;
+
+			nano = fraction * pow10(9 - fractionDigits);
+		}
+
+		try {
+
+			LocalDateTime dateTime = LocalDateTime.of(year, month, day, hour, minute, second, nano);
+			return ZonedDateTime.ofLocal(dateTime, ZoneOffset.UTC, null);
+
+		} catch (DateTimeException e) {
+
+			// Out of range fields, the default parser builds the proper error
+			return null;
+		}
+	}
+
+	/**
+	 * Reads a positive number
+	 *
+	 * @return the number, or -1 if any of the characters is not a digit
+	 */
+	private static int readDigits(CharSequence text, int offset, int count) {
+
+		int value = 0;
+
+		for (int i = offset; i < offset + count; i++) {
+
+			int digit = text.charAt(i) - '0';
+
+			if (digit < 0 || digit > 9)
+				return -1;
+
+			value = value * 10 + digit;
+		}
+
+		return value;
+	}
+
+	private static void writeDigits(char[] buf, int offset, int value, int count) {
+
+		for (int i = offset + count - 1; i >= offset; i--) {
+
+			buf[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	private static int pow10(int exponent) {
+
+		int value = 1;
+
+		for (int i = 0; i < exponent; i++)
+			value *= 10;
+
+		return value;
+	}
+
+}
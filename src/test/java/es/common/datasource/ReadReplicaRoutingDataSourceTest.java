@@ -0,0 +1,142 @@
+package es.common.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import es.common.sample.SampleApplication;
+import es.common.sample.SampleDto;
+import es.common.sample.SampleService;
+
+/**
+ * Checks the routing of {@link ReadReplicaRoutingDataSource} over a primary and a replica H2
+ * databases, through the sample service
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@SpringBootTest(classes = { SampleApplication.class, ReadReplicaRoutingDataSourceTest.Config.class },
+		properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+class ReadReplicaRoutingDataSourceTest {
+
+	private static final JdbcDataSource PRIMARY = h2("read-replica-primary");
+
+	private static final JdbcDataSource REPLICA = h2("read-replica-replica");
+
+	@Autowired
+	private SampleService service;
+
+	private final JdbcTemplate primary = new JdbcTemplate(PRIMARY);
+
+	private final JdbcTemplate replica = new JdbcTemplate(REPLICA);
+
+	private Long id;
+
+	@BeforeEach
+	void setUp() {
+
+		primary.update("DELETE FROM sample");
+		id = service.save(new SampleDto(null, "primary", 1)).getContent().getId();
+
+		replicate();
+		replica.update("UPDATE sample SET name = 'replica'");
+
+		ReadReplicaRoutingDataSource.clearStickiness();
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		ReadReplicaRoutingDataSource.clearStickiness();
+	}
+
+	@Test
+	void readsGoToTheReplicaAndWritesToThePrimary() {
+
+		assertEquals("replica", service.findById(id).getContent().getName());
+
+		Long saved = service.save(new SampleDto(null, "written", 2)).getContent().getId();
+
+		assertEquals(1, count(primary, saved));
+		assertEquals(0, count(replica, saved));
+	}
+
+	@Test
+	void readsAfterACommitStickToThePrimary() {
+
+		Long saved = service.save(new SampleDto(null, "written", 2)).getContent().getId();
+
+		assertEquals("written", service.findById(saved).getContent().getName());
+		assertEquals("primary", service.findById(id).getContent().getName());
+	}
+
+	@Test
+	void filterScopesTheStickinessToTheRequest() throws Exception {
+
+		// Left by the previous request served by the thread
+		ReadReplicaRoutingDataSource.stickToPrimary(Duration.ofMinutes(1));
+
+		new ReplicaStickinessFilter().doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+				(request, response) -> {
+
+					assertEquals("replica", service.findById(id).getContent().getName());
+
+					service.save(new SampleDto(null, "written", 2));
+
+					assertEquals("primary", service.findById(id).getContent().getName());
+				});
+
+		assertEquals("replica", service.findById(id).getContent().getName());
+	}
+
+	/**
+	 * Copies the schema and the rows of the primary to the replica
+	 */
+	private void replicate() {
+
+		List<String> script = primary.queryForList("SCRIPT", String.class);
+
+		replica.execute("DROP ALL OBJECTS");
+		script.forEach(replica::execute);
+	}
+
+	private static int count(JdbcTemplate jdbc, Long id) {
+
+		return jdbc.queryForObject("SELECT COUNT(*) FROM sample WHERE id = ?", Integer.class, id);
+	}
+
+	private static JdbcDataSource h2(String name) {
+
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+
+		return dataSource;
+	}
+
+	@TestConfiguration
+	static class Config {
+
+		@Bean
+		DataSource dataSource() {
+			return ReadReplicaRoutingDataSource.lazy(PRIMARY, List.of(REPLICA), ReplicaSelection.ROUND_ROBIN,
+					Duration.ofMinutes(1));
+		}
+	}
+
+}
@@ -0,0 +1,158 @@
+package es.common.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Checks the identifiers generated by {@link TimeOrderedIdentifierGenerator} against H2
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+class TimeOrderedIdentifierGeneratorTest {
+
+	private static SessionFactory sessionFactory;
+
+	@BeforeAll
+	static void setUp() {
+
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:time-ordered-ids;DB_CLOSE_DELAY=-1");
+
+		Configuration configuration = new Configuration()
+				.addAnnotatedClass(LongEntity.class)
+				.addAnnotatedClass(UuidEntity.class)
+				.addAnnotatedClass(PrimitiveEntity.class)
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+
+		configuration.getProperties().put(AvailableSettings.DATASOURCE, dataSource);
+
+		sessionFactory = configuration.buildSessionFactory();
+	}
+
+	@AfterAll
+	static void tearDown() {
+
+		sessionFactory.close();
+	}
+
+	@Test
+	void newEntitiesGetIncreasingIdentifiers() {
+
+		LongEntity first = new LongEntity();
+		LongEntity second = new LongEntity();
+		UuidEntity uuid = new UuidEntity();
+
+		sessionFactory.inTransaction(session -> {
+			session.persist(first);
+			session.persist(second);
+			session.persist(uuid);
+		});
+
+		assertNotNull(first.getId());
+		assertTrue(second.getId() > first.getId());
+		assertEquals(7, uuid.getId().version());
+		assertNotNull(sessionFactory.fromTransaction(session -> session.find(LongEntity.class, second.getId())));
+	}
+
+	@Test
+	void primitiveIdentifiersAreGeneratedWhenZero() {
+
+		PrimitiveEntity first = new PrimitiveEntity();
+		PrimitiveEntity second = new PrimitiveEntity();
+
+		sessionFactory.inTransaction(session -> {
+			session.persist(first);
+			session.persist(second);
+		});
+
+		assertNotEquals(0L, first.getId());
+		assertTrue(second.getId() > first.getId());
+		assertNotNull(sessionFactory.fromTransaction(session -> session.find(PrimitiveEntity.class, first.getId())));
+	}
+
+	@Test
+	void assignedIdentifiersAreKept() {
+
+		LongEntity entity = new LongEntity();
+		entity.setId(42L);
+
+		UUID assigned = TimeOrderedIdGenerator.getDefault().nextUuid();
+		UuidEntity uuid = new UuidEntity();
+		uuid.setId(assigned);
+
+		// Merged as Spring Data saves the new entities with an identifier
+		LongEntity merged = sessionFactory.fromTransaction(session -> {
+			session.merge(uuid);
+			return session.merge(entity);
+		});
+
+		assertEquals(42L, merged.getId());
+		assertNotNull(sessionFactory.fromTransaction(session -> session.find(LongEntity.class, 42L)));
+		assertNotNull(sessionFactory.fromTransaction(session -> session.find(UuidEntity.class, assigned)));
+	}
+
+	@Entity(name = "LongEntity")
+	public static class LongEntity {
+
+		@Id
+		@TimeOrderedId
+		private Long id;
+
+		public Long getId() {
+			return id;
+		}
+
+		public void setId(Long id) {
+			this.id = id;
+		}
+	}
+
+	@Entity(name = "PrimitiveEntity")
+	public static class PrimitiveEntity {
+
+		@Id
+		@TimeOrderedId
+		private long id;
+
+		public long getId() {
+			return id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+	}
+
+	@Entity(name = "UuidEntity")
+	public static class UuidEntity {
+
+		@Id
+		@TimeOrderedId
+		private UUID id;
+
+		public UUID getId() {
+			return id;
+		}
+
+		public void setId(UUID id) {
+			this.id = id;
+		}
+	}
+
+}
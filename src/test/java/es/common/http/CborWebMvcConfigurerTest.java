@@ -0,0 +1,136 @@
+package es.common.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.config.EnableHypermediaSupport;
+import org.springframework.hateoas.config.EnableHypermediaSupport.HypermediaType;
+import org.springframework.hateoas.config.HypermediaMappingInformation;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.client.MockMvcClientHttpRequestFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import es.common.util.RestTemplateUtil;
+
+/**
+ * Checks that the CBOR responses follow the Jackson and HAL configuration of the application
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@SpringJUnitWebConfig(CborWebMvcConfigurerTest.Config.class)
+class CborWebMvcConfigurerTest {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+	}
+
+	@Test
+	void modelsAreWrittenWithHalAndTheApplicationMapper() throws Exception {
+
+		byte[] body = mockMvc.perform(get("/people/1").accept(MediaType.APPLICATION_CBOR))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		Map<String, Object> person = new ObjectMapper(new CBORFactory()).readValue(body, new TypeReference<>() {
+		});
+
+		assertEquals("diego", person.get("name"));
+		assertFalse(person.containsKey("nickname"));
+		assertEquals(Map.of("self", Map.of("href", "/people/1")), person.get("_links"));
+	}
+
+	@Test
+	void jsonIsStillTheDefault() throws Exception {
+
+		mockMvc.perform(get("/people/1"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.parseMediaType("application/hal+json")));
+	}
+
+	@Test
+	void clientsReadTheModelsFromCbor() {
+
+		RestTemplate restTemplate = new RestTemplate(new MockMvcClientHttpRequestFactory(mockMvc));
+		RestTemplateUtil.enableCbor(restTemplate, CborWebMvcConfigurer.cborMapper(Jackson2ObjectMapperBuilder.cbor(),
+				context.getBeanProvider(HypermediaMappingInformation.class).orderedStream()
+						.filter(mapping -> mapping.getMediaTypes().contains(MediaType.parseMediaType("application/hal+json")))
+						.findFirst().orElseThrow()));
+
+		EntityModel<Person> person = restTemplate.exchange("/people/1", HttpMethod.GET, null,
+				new ParameterizedTypeReference<EntityModel<Person>>() {
+				}).getBody();
+
+		assertEquals("diego", person.getContent().name());
+		assertEquals("/people/1", person.getRequiredLink(IanaLinkRelations.SELF).getHref());
+	}
+
+	record Person(String name, String nickname) {
+	}
+
+	@RestController
+	static class PersonController {
+
+		@GetMapping("/people/1")
+		EntityModel<Person> person() {
+			return EntityModel.of(new Person("diego", null), Link.of("/people/1"));
+		}
+	}
+
+	@Configuration
+	@EnableWebMvc
+	@EnableHypermediaSupport(type = HypermediaType.HAL)
+	@EnableCbor
+	static class Config {
+
+		@Bean
+		@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+		Jackson2ObjectMapperBuilder jacksonObjectMapperBuilder() {
+			return new Jackson2ObjectMapperBuilder().serializationInclusion(JsonInclude.Include.NON_NULL);
+		}
+
+		@Bean
+		PersonController personController() {
+			return new PersonController();
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package es.common.http;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Checks the decompression of the request bodies and the status of the invalid ones
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+class GzipRequestBodyFilterTest {
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+
+		mockMvc = MockMvcBuilders.standaloneSetup(new EchoController())
+				.addFilters(new GzipRequestBodyFilter(1024))
+				.build();
+	}
+
+	@Test
+	void compressedBodiesAreReadAsUsual() throws Exception {
+
+		mockMvc.perform(post("/echo")
+					.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(gzip("{\"name\":\"diego\"}".getBytes(StandardCharsets.UTF_8))))
+				.andExpect(status().isOk())
+				.andExpect(content().string("diego"));
+	}
+
+	@Test
+	void corruptedBodiesAreBadRequests() throws Exception {
+
+		byte[] truncated = Arrays.copyOf(gzip("{\"name\":\"diego\"}".getBytes(StandardCharsets.UTF_8)), 12);
+
+		mockMvc.perform(post("/echo")
+					.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("not gzip"))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(post("/echo")
+					.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(truncated))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void bodiesOverTheLimitAreTooLarge() throws Exception {
+
+		byte[] large = ("{\"name\":\"" + "a".repeat(4096) + "\"}").getBytes(StandardCharsets.UTF_8);
+
+		mockMvc.perform(post("/echo")
+					.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(gzip(large)))
+				.andExpect(status().isPayloadTooLarge());
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+		try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+			output.write(body);
+		}
+
+		return compressed.toByteArray();
+	}
+
+	@RestController
+	static class EchoController {
+
+		@PostMapping("/echo")
+		String echo(@RequestBody Map<String, String> body) {
+			return body.get("name");
+		}
+	}
+
+}
@@ -0,0 +1,214 @@
+package es.common.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import es.common.http.ResilienceInterceptor.CircuitState;
+import es.common.http.ResilienceInterceptor.PolicyStats;
+import es.common.util.RestTemplateUtil;
+
+/**
+ * Checks the retries, the circuit breaker and the bulkhead of {@link ResilienceInterceptor}
+ * against a local HTTP server
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+class ResilienceInterceptorTest {
+
+	private HttpServer server;
+
+	private ExecutorService executor;
+
+	private String url;
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	/**
+	 * Status of the response to the request of the given number, from 1
+	 */
+	private volatile IntUnaryOperator status = request -> 200;
+
+	private volatile CountDownLatch blocked = new CountDownLatch(0);
+
+	private final CountDownLatch received = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() throws IOException {
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.createContext("/", exchange -> {
+
+			int code = status.applyAsInt(requests.incrementAndGet());
+			received.countDown();
+
+			try {
+				blocked.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			exchange.sendResponseHeaders(code, -1);
+			exchange.close();
+		});
+		server.start();
+
+		url = "http://localhost:" + server.getAddress().getPort() + "/items";
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	@Test
+	void idempotentCallsAreRetriedWithBackoff() {
+
+		status = request -> request <= 2 ? 503 : 200;
+
+		RestTemplate restTemplate = restTemplate(ResilienceSettings.builder()
+				.maxAttempts(3)
+				.initialBackoff(Duration.ofMillis(10))
+				.maxBackoff(Duration.ofMillis(20))
+				.build());
+
+		assertEquals(200, restTemplate.getForEntity(url, String.class).getStatusCode().value());
+		assertEquals(3, requests.get());
+		assertEquals(2L, interceptor(restTemplate).getRetries());
+
+		// The last attempt is returned as it is when it fails too
+		requests.set(0);
+		status = request -> 503;
+
+		assertThrows(HttpServerErrorException.class, () -> restTemplate.getForEntity(url, String.class));
+		assertEquals(3, requests.get());
+	}
+
+	@Test
+	void retriesAreCountedWithTheTagsOfTheCall() {
+
+		status = request -> request <= 2 ? 503 : 200;
+
+		RestTemplate restTemplate = restTemplate(ResilienceSettings.builder()
+				.initialBackoff(Duration.ofMillis(10))
+				.build());
+
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RestTemplateUtil.enableMetrics(restTemplate, registry, null, List.of("/items"));
+
+		restTemplate.getForEntity(url, String.class);
+
+		assertEquals(2d, registry.get(MetricsInterceptor.RETRIES)
+				.tag("host", "localhost").tag("method", "GET").tag("uri", "/items")
+				.counter().count());
+	}
+
+	@Test
+	void circuitOpensAndClosesAfterASuccessfulProbe() throws InterruptedException {
+
+		status = request -> 500;
+
+		RestTemplate restTemplate = restTemplate(ResilienceSettings.builder()
+				.maxAttempts(1)
+				.slidingWindowSize(2)
+				.minimumCalls(2)
+				.failureRateThreshold(0.5d)
+				.openDuration(Duration.ofMillis(200))
+				.build());
+
+		assertThrows(HttpServerErrorException.class, () -> restTemplate.getForEntity(url, String.class));
+		assertThrows(HttpServerErrorException.class, () -> restTemplate.getForEntity(url, String.class));
+		assertEquals(CircuitState.OPEN, stats(restTemplate).getState());
+
+		ResourceAccessException rejected = assertThrows(ResourceAccessException.class,
+				() -> restTemplate.getForEntity(url, String.class));
+		assertInstanceOf(CallRejectedException.class, rejected.getCause());
+		assertEquals(2, requests.get());
+
+		// A failed probe opens the circuit again
+		Thread.sleep(250);
+		assertThrows(HttpServerErrorException.class, () -> restTemplate.getForEntity(url, String.class));
+		assertEquals(CircuitState.OPEN, stats(restTemplate).getState());
+
+		Thread.sleep(250);
+		status = request -> 200;
+
+		assertEquals(200, restTemplate.getForEntity(url, String.class).getStatusCode().value());
+		assertEquals(CircuitState.CLOSED, stats(restTemplate).getState());
+		assertEquals(1L, stats(restTemplate).getCircuitRejections());
+		assertEquals(4, requests.get());
+	}
+
+	@Test
+	void callsOverTheBulkheadAreRejected() throws Exception {
+
+		blocked = new CountDownLatch(1);
+
+		RestTemplate restTemplate = restTemplate(ResilienceSettings.builder()
+				.maxConcurrentCalls(1)
+				.build());
+
+		CompletableFuture<Integer> first = CompletableFuture
+				.supplyAsync(() -> restTemplate.getForEntity(url, String.class).getStatusCode().value());
+
+		assertTrue(received.await(5, TimeUnit.SECONDS));
+
+		ResourceAccessException rejected = assertThrows(ResourceAccessException.class,
+				() -> restTemplate.getForEntity(url, String.class));
+		assertInstanceOf(CallRejectedException.class, rejected.getCause());
+
+		blocked.countDown();
+
+		assertEquals(200, first.get(5, TimeUnit.SECONDS));
+		assertEquals(1L, stats(restTemplate).getBulkheadRejections());
+		assertEquals(0, stats(restTemplate).getInProgress());
+		assertEquals(1, requests.get());
+	}
+
+	private static RestTemplate restTemplate(ResilienceSettings settings) {
+
+		return RestTemplateUtil.createResilientRestTemplate(HttpClientSettings.builder().http2(false).build(), settings);
+	}
+
+	private static ResilienceInterceptor interceptor(RestTemplate restTemplate) {
+
+		return (ResilienceInterceptor) restTemplate.getInterceptors().stream()
+				.filter(ResilienceInterceptor.class::isInstance)
+				.findFirst().orElseThrow();
+	}
+
+	private static PolicyStats stats(RestTemplate restTemplate) {
+
+		return interceptor(restTemplate).getStats().values().iterator().next();
+	}
+
+}
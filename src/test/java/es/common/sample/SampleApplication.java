@@ -0,0 +1,113 @@
+package es.common.sample;
+
+import java.util.Map;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import es.common.util.CrudLoadHarness;
+import es.common.util.CrudLoadHarness.LoadConfig;
+import es.common.util.CrudLoadHarness.LoadReport;
+import es.common.util.CrudLoadHarness.Operation;
+
+/**
+ * Application of the {@link SampleEntity} on an embedded H2 database, with the SQL statements
+ * counted by {@link es.common.util.CountingStatementInspector}.<br><br>
+ *
+ * Its main method runs the {@link CrudLoadHarness} and prints the report. The workload is
+ * configured with the {@code harness.rows}, {@code harness.concurrency} and
+ * {@code harness.operations} system properties, for example:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=es.common.sample.SampleApplication \
+ *         -Dexec.classpathScope=test -Dharness.rows=1000000 -Dharness.concurrency=16
+ * </pre>
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+public class SampleApplication {
+
+	/**
+	 * Registers the statement inspector on the persistence unit
+	 */
+	public static final String STATEMENT_INSPECTOR_PROPERTY =
+			"spring.jpa.properties.hibernate.session_factory.statement_inspector=es.common.util.CountingStatementInspector";
+
+	/**
+	 * Batches the inserts and updates of the bulk operations
+	 */
+	public static final String BATCH_SIZE_PROPERTY = "spring.jpa.properties.hibernate.jdbc.batch_size=50";
+
+	@Bean
+	SampleAssembler sampleAssembler() {
+		return new SampleAssembler();
+	}
+
+	@Bean
+	SampleService sampleService(SampleRepository repository, SampleAssembler assembler) {
+		return new SampleService(repository, assembler);
+	}
+
+	/**
+	 * Builds the harness of the sample service
+	 *
+	 * @param service the sample service
+	 * @return the harness
+	 */
+	public static CrudLoadHarness<SampleDto, Long> harness(SampleService service) {
+
+		return new CrudLoadHarness<>(service,
+				sequence -> new SampleDto(null, "sample-" + sequence, (int) (sequence % 1000)),
+				id -> {
+					SampleDto dto = service.findById(id).getContent();
+					dto.setAmount(dto.getAmount() == null ? 0 : dto.getAmount() + 1);
+					return dto;
+				},
+				SampleDto::getId);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+
+		SpringApplication application = new SpringApplication(SampleApplication.class);
+		application.setWebApplicationType(WebApplicationType.NONE);
+		application.setDefaultProperties(Map.of(
+				key(STATEMENT_INSPECTOR_PROPERTY), value(STATEMENT_INSPECTOR_PROPERTY),
+				key(BATCH_SIZE_PROPERTY), value(BATCH_SIZE_PROPERTY)));
+
+		try (ConfigurableApplicationContext context = application.run(args)) {
+
+			LoadConfig config = LoadConfig.builder()
+					.initialRows(Long.getLong("harness.rows", 10_000L))
+					.concurrency(Integer.getInteger("harness.concurrency", 8))
+					.operationsPerThread(Long.getLong("harness.operations", 10_000L))
+					.weights(Map.of(
+							Operation.FIND_BY_ID, 50,
+							Operation.FIND_BY_ID_MINIFIED, 10,
+							Operation.FIND_ALL_BY_IDS, 10,
+							Operation.SAVE, 10,
+							Operation.UPDATE, 15,
+							Operation.DELETE, 5))
+					.build();
+
+			LoadReport report = harness(context.getBean(SampleService.class)).run(config);
+
+			System.out.println(report);
+		}
+	}
+
+	private static String key(String property) {
+		return property.substring(0, property.indexOf('='));
+	}
+
+	private static String value(String property) {
+		return property.substring(property.indexOf('=') + 1);
+	}
+
+}
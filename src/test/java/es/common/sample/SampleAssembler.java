@@ -0,0 +1,61 @@
+package es.common.sample;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import es.common.assembler.IAssemblerMinificable;
+import es.common.util.AssemblerUtil;
+import es.common.util.JoinEntityMap;
+
+/**
+ * Assembler of the {@link SampleEntity}
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class SampleAssembler implements IAssemblerMinificable<SampleEntity, SampleDto, SampleMinDto> {
+
+	@Override
+	public SampleEntity buildEntityFromDto(SampleDto dto, JoinEntityMap relatedEntities) {
+
+		SampleEntity entity = new SampleEntity();
+		entity.setId(dto.getId());
+		entity.setName(dto.getName());
+		entity.setAmount(dto.getAmount());
+		entity.setVersionLock(dto.getVersionLock());
+		entity.setModifiedBy(dto.getModifiedBy());
+
+		AssemblerUtil.copyBasicPropertiesToEntity(dto, entity);
+
+		return entity;
+	}
+
+	@Override
+	public SampleDto buildDtoFromEntity(SampleEntity entity) {
+
+		SampleDto dto = new SampleDto(entity.getId(), entity.getName(), entity.getAmount());
+		dto.setVersionLock(entity.getVersionLock());
+		dto.setActive(Boolean.TRUE.equals(entity.getActive()));
+		dto.setModifiedBy(entity.getModifiedBy());
+
+		AssemblerUtil.copyBasicPropertiesToDto(entity, dto);
+
+		return dto;
+	}
+
+	@Override
+	public EntityModel<SampleDto> buildDtoWithLinksFromEntity(SampleEntity entity) {
+
+		return EntityModel.of(buildDtoFromEntity(entity), Link.of("/samples/" + entity.getId()));
+	}
+
+	@Override
+	public Collection<EntityModel<SampleDto>> buildDtosWithLinksFromEntities(Collection<SampleEntity> entities) {
+
+		return entities.stream().map(this::buildDtoWithLinksFromEntity).collect(Collectors.toList());
+	}
+
+}
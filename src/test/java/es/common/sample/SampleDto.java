@@ -0,0 +1,34 @@
+package es.common.sample;
+
+import es.common.dto.AbstractCommonDto;
+import es.common.entity.IdentifiableObject;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO of the {@link SampleEntity}
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class SampleDto extends AbstractCommonDto implements IdentifiableObject<Long> {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long id;
+
+	private String name;
+
+	private Integer amount;
+
+	public SampleDto(Long id, String name, Integer amount) {
+		this.id = id;
+		this.name = name;
+		this.amount = amount;
+	}
+
+}
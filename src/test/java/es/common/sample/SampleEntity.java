@@ -0,0 +1,38 @@
+package es.common.sample;
+
+import es.common.entity.AbstractCommonEntity;
+import es.common.entity.TimeOrderedId;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Sample entity used by the tests and the load harness
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "sample")
+public class SampleEntity extends AbstractCommonEntity<Long> {
+
+	public static final String DEFAULT_DESCRIPTOR = "sample";
+
+	@Id
+	@TimeOrderedId
+	private Long id;
+
+	@Column(name = "name", nullable = false)
+	private String name;
+
+	@Column(name = "amount")
+	private Integer amount;
+
+}
@@ -0,0 +1,22 @@
+package es.common.sample;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Minified DTO of the {@link SampleEntity}
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class SampleMinDto {
+
+	private Long id;
+
+	private String name;
+
+}
@@ -0,0 +1,12 @@
+package es.common.sample;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository of the {@link SampleEntity}
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public interface SampleRepository extends JpaRepository<SampleEntity, Long> {
+}
@@ -0,0 +1,35 @@
+package es.common.sample;
+
+import java.util.Collection;
+import java.util.Map;
+
+import es.common.service.BasicMinificableService;
+import es.common.util.JoinEntityMap;
+
+/**
+ * Service of the {@link SampleEntity}, without related entities nor validations
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class SampleService
+		extends BasicMinificableService<SampleRepository, SampleEntity, Long, SampleDto, SampleMinDto, SampleAssembler> {
+
+	public SampleService(SampleRepository repository, SampleAssembler assembler) {
+		super(SampleEntity.class, SampleMinDto.class, repository, assembler);
+	}
+
+	@Override
+	public Map<SampleDto, JoinEntityMap> getRelatedEntities(Collection<SampleDto> dtos) {
+		return null;
+	}
+
+	@Override
+	public void basicDataValidation(Collection<SampleDto> dtos) {
+	}
+
+	@Override
+	public void createDataValidation(Collection<SampleDto> dtos) {
+	}
+
+}
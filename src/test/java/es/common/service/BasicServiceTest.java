@@ -0,0 +1,85 @@
+package es.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import es.common.dto.UpsertResultDto;
+import es.common.sample.SampleApplication;
+import es.common.sample.SampleAssembler;
+import es.common.sample.SampleDto;
+import es.common.sample.SampleEntity;
+import es.common.sample.SampleRepository;
+import es.common.sample.SampleService;
+import es.common.util.CountingStatementInspector;
+
+/**
+ * Checks the bulk writes of {@link BasicService} over the sample service on H2
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@SpringBootTest(classes = SampleApplication.class, properties = SampleApplication.STATEMENT_INSPECTOR_PROPERTY)
+class BasicServiceTest {
+
+	@Autowired
+	private SampleService service;
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Test
+	void upsertsLookUpTheExistingRowsOnce() {
+
+		SampleDto existing = service.save(new SampleDto(null, "existing", 1)).getContent();
+		existing.setAmount(2);
+
+		CountingStatementInspector.reset();
+
+		UpsertResultDto<SampleDto> result = service.saveOrUpdateAll(
+				List.of(existing, new SampleDto(null, "new", 1)));
+
+		// Lookup, insert and update
+		assertEquals(3L, CountingStatementInspector.current());
+
+		assertEquals(1, result.getInserted().size());
+		assertEquals("existing", result.getUpdated().get(0).getContent().getName());
+		assertEquals(2, service.findById(existing.getId()).getContent().getAmount());
+	}
+
+	@Test
+	void bulkUpdatesCallTheOverriddenCopy() {
+
+		CopyCountingService counting = context.getAutowireCapableBeanFactory().createBean(CopyCountingService.class);
+
+		List<SampleDto> saved = counting.saveAll(List.of(new SampleDto(null, "a", 1), new SampleDto(null, "b", 1)))
+				.stream().map(model -> model.getContent()).toList();
+
+		counting.updateAll(saved);
+
+		assertEquals(2, counting.copies.get());
+	}
+
+	static class CopyCountingService extends SampleService {
+
+		private final AtomicInteger copies = new AtomicInteger();
+
+		CopyCountingService(SampleRepository repository, SampleAssembler assembler) {
+			super(repository, assembler);
+		}
+
+		@Override
+		protected void copyPreviousDefaultProperties(SampleEntity entity) {
+
+			copies.incrementAndGet();
+			super.copyPreviousDefaultProperties(entity);
+		}
+	}
+
+}
@@ -0,0 +1,234 @@
+package es.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import es.common.datasource.ShardRoutingDataSource;
+import es.common.datasource.ShardStrategy;
+import es.common.dto.MultiGetResultDto;
+
+/**
+ * Checks the routing of {@link ShardedService} over several H2 databases
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+class ShardedServiceTest {
+
+	private static final int SHARDS = 3;
+
+	private List<JdbcTemplate> shards;
+
+	private DataSource dataSource;
+
+	private ShardedService<Item, Long> service;
+
+	@BeforeEach
+	void setUp() {
+
+		List<DataSource> dataSources = new ArrayList<>();
+		shards = new ArrayList<>();
+
+		for (int i = 0; i < SHARDS; i++) {
+
+			JdbcDataSource shard = new JdbcDataSource();
+			shard.setURL("jdbc:h2:mem:shard-" + i + ";DB_CLOSE_DELAY=-1");
+			dataSources.add(shard);
+
+			JdbcTemplate jdbc = new JdbcTemplate(shard);
+			jdbc.execute("CREATE TABLE IF NOT EXISTS item (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+			jdbc.execute("DELETE FROM item");
+			shards.add(jdbc);
+		}
+
+		dataSource = ShardRoutingDataSource.lazy(dataSources);
+		service = new ShardedService<>(new ItemService(dataSource), SHARDS, ShardStrategy.hash(), Item::id);
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		service.close();
+	}
+
+	@Test
+	void connectionsWithoutShardGoToTheDefaultShard() throws SQLException {
+
+		try (Connection connection = dataSource.getConnection()) {
+			assertEquals("jdbc:h2:mem:shard-0", connection.getMetaData().getURL().split(";")[0]);
+		}
+	}
+
+	@Test
+	void entitiesAreSavedOnTheShardOfTheirKey() {
+
+		List<Item> items = List.of(new Item(1L, "a"), new Item(2L, "b"), new Item(3L, "c"), new Item(4L, "d"),
+				new Item(5L, "e"), new Item(6L, "f"));
+
+		service.saveAll(items);
+
+		for (Item item : items) {
+			assertEquals(1, shards.get(service.shardOf(item.id()))
+					.queryForObject("SELECT COUNT(*) FROM item WHERE id = ?", Integer.class, item.id()));
+		}
+
+		assertEquals(items.size(), service.findAll().size());
+		assertEquals("d", service.findById(4L).getContent().name());
+	}
+
+	@Test
+	void multiGetsKeepTheOrderOfTheIdentifiers() {
+
+		service.saveAll(List.of(new Item(1L, "a"), new Item(2L, "b"), new Item(3L, "c"), new Item(4L, "d")));
+
+		MultiGetResultDto<Item, Long> result = service.findAllByIds(Arrays.asList(4L, 9L, 1L, 3L, 7L, 2L));
+
+		assertEquals(List.of(4L, 1L, 3L, 2L),
+				result.getFound().stream().map(model -> model.getContent().id()).collect(Collectors.toList()));
+		assertEquals(List.of(9L, 7L), result.getMissingIds());
+	}
+
+	@Test
+	void failuresOfEveryShardAreReported() {
+
+		// One item on every shard
+		List<Item> items = LongStream.rangeClosed(1L, 100L).boxed()
+				.collect(Collectors.toMap(service::shardOf, id -> new Item(id, "item-" + id), (first, other) -> first))
+				.values().stream().toList();
+
+		assertEquals(SHARDS, items.size());
+
+		service.saveAll(items);
+
+		// Every shard fails on the duplicated keys, the first error carries the rest
+		RuntimeException error = assertThrows(RuntimeException.class, () -> service.saveAll(items));
+
+		assertEquals(SHARDS - 1, error.getSuppressed().length);
+	}
+
+	@Test
+	void shardsCanNotChangeInsideTransactions() {
+
+		TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+		assertThrows(IllegalStateException.class,
+				() -> transaction.executeWithoutResult(status -> ShardRoutingDataSource.runOn(1, () -> null)));
+
+		Boolean sameShard = ShardRoutingDataSource.runOn(1,
+				() -> transaction.execute(status -> ShardRoutingDataSource.runOn(1, () -> true)));
+
+		assertTrue(sameShard);
+	}
+
+	record Item(Long id, String name) {
+	}
+
+	/**
+	 * Service of the items of the shard selected on the thread
+	 */
+	static class ItemService implements ICommonService<Item, Long> {
+
+		private final JdbcTemplate jdbc;
+
+		private final TransactionTemplate transaction;
+
+		ItemService(DataSource dataSource) {
+			this.jdbc = new JdbcTemplate(dataSource);
+			this.transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		}
+
+		@Override
+		public Collection<EntityModel<Item>> findAll() {
+			return jdbc.query("SELECT id, name FROM item", (rs, row) -> EntityModel.of(new Item(rs.getLong(1), rs.getString(2))));
+		}
+
+		@Override
+		public EntityModel<Item> findById(Long id) {
+			return jdbc.query("SELECT id, name FROM item WHERE id = ?",
+					(rs, row) -> EntityModel.of(new Item(rs.getLong(1), rs.getString(2))), id).stream().findFirst().orElse(null);
+		}
+
+		@Override
+		public MultiGetResultDto<Item, Long> findAllByIds(Collection<Long> ids) {
+
+			List<EntityModel<Item>> found = new ArrayList<>();
+			List<Long> missingIds = new ArrayList<>();
+
+			// Returned in reverse order, the sharded service must restore it
+			for (Long id : ids.stream().sorted((left, right) -> Long.compare(right, left)).toList()) {
+
+				EntityModel<Item> model = findById(id);
+
+				if (model == null)
+					missingIds.add(id);
+				else
+					found.add(model);
+			}
+
+			return new MultiGetResultDto<>(found, missingIds);
+		}
+
+		@Override
+		public EntityModel<Item> save(Item dto) {
+			return saveAll(List.of(dto)).iterator().next();
+		}
+
+		@Override
+		public EntityModel<Item> update(Item dto) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Collection<EntityModel<Item>> saveAll(Collection<Item> dtos) {
+
+			return transaction.execute(status -> {
+
+				List<EntityModel<Item>> saved = new ArrayList<>();
+
+				for (Item dto : dtos) {
+					jdbc.update("INSERT INTO item (id, name) VALUES (?, ?)", dto.id(), dto.name());
+					saved.add(EntityModel.of(dto));
+				}
+
+				return saved;
+			});
+		}
+
+		@Override
+		public Collection<EntityModel<Item>> updateAll(Collection<Item> dtos) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void deleteById(Long id) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void deleteByIds(Collection<Long> ids) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package es.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.hateoas.EntityModel;
+
+import es.common.dto.MultiGetResultDto;
+
+/**
+ * Checks how {@link WriteCoalescer} completes the writes of the failed batches
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+class WriteCoalescerTest {
+
+	@Test
+	void batchesWithoutAllTheirResultsAreNotWrittenAgain() throws Exception {
+
+		StubService service = new StubService(dtos -> dtos.stream().limit(1).map(EntityModel::of).toList());
+
+		try (WriteCoalescer<String> coalescer = new WriteCoalescer<>(service, Duration.ofMillis(200), 10)) {
+
+			List<CompletableFuture<EntityModel<String>>> writes = List.of(coalescer.save("a"), coalescer.save("b"));
+
+			for (CompletableFuture<EntityModel<String>> write : writes)
+				assertInstanceOf(IllegalStateException.class, failure(write));
+		}
+
+		assertEquals(0, service.singles.get());
+	}
+
+	@Test
+	void onlyRowFailuresAreRetriedOneByOne() throws Exception {
+
+		StubService service = new StubService(dtos -> {
+			throw new DataIntegrityViolationException("duplicate");
+		});
+
+		try (WriteCoalescer<String> coalescer = new WriteCoalescer<>(service, Duration.ofMillis(200), 10)) {
+
+			CompletableFuture<EntityModel<String>> a = coalescer.save("a");
+			CompletableFuture<EntityModel<String>> b = coalescer.save("b");
+
+			assertEquals("a", a.get(5, TimeUnit.SECONDS).getContent());
+			assertEquals("b", b.get(5, TimeUnit.SECONDS).getContent());
+		}
+
+		assertEquals(2, service.singles.get());
+
+		StubService down = new StubService(dtos -> {
+			throw new DataAccessResourceFailureException("database down");
+		});
+
+		try (WriteCoalescer<String> coalescer = new WriteCoalescer<>(down, Duration.ofMillis(200), 10)) {
+
+			List<CompletableFuture<EntityModel<String>>> writes = List.of(coalescer.save("a"), coalescer.save("b"));
+
+			for (CompletableFuture<EntityModel<String>> write : writes)
+				assertInstanceOf(DataAccessResourceFailureException.class, failure(write));
+		}
+
+		assertEquals(0, down.singles.get());
+	}
+
+	@Test
+	void errorsDoNotStopTheDispatcher() throws Exception {
+
+		AtomicInteger batches = new AtomicInteger();
+
+		StubService service = new StubService(dtos -> {
+
+			if (batches.incrementAndGet() == 1)
+				throw new AssertionError("boom");
+
+			return dtos.stream().map(EntityModel::of).toList();
+		});
+
+		try (WriteCoalescer<String> coalescer = new WriteCoalescer<>(service, Duration.ZERO, 10)) {
+
+			assertInstanceOf(AssertionError.class, failure(coalescer.update("a")));
+			assertEquals("b", coalescer.update("b").get(5, TimeUnit.SECONDS).getContent());
+		}
+	}
+
+	private static Throwable failure(CompletableFuture<?> write) {
+
+		return assertThrows(ExecutionException.class, () -> write.get(5, TimeUnit.SECONDS)).getCause();
+	}
+
+	/**
+	 * Service whose bulk writes are answered by the given function
+	 */
+	private static class StubService implements ICommonService<String, String> {
+
+		private final Function<Collection<String>, List<EntityModel<String>>> bulk;
+		private final AtomicInteger singles = new AtomicInteger();
+
+		StubService(Function<Collection<String>, List<EntityModel<String>>> bulk) {
+			this.bulk = bulk;
+		}
+
+		@Override
+		public Collection<EntityModel<String>> saveAll(Collection<String> dtos) {
+			return bulk.apply(new ArrayList<>(dtos));
+		}
+
+		@Override
+		public Collection<EntityModel<String>> updateAll(Collection<String> dtos) {
+			return bulk.apply(new ArrayList<>(dtos));
+		}
+
+		@Override
+		public EntityModel<String> save(String dto) {
+			singles.incrementAndGet();
+			return EntityModel.of(dto);
+		}
+
+		@Override
+		public EntityModel<String> update(String dto) {
+			singles.incrementAndGet();
+			return EntityModel.of(dto);
+		}
+
+		@Override
+		public Collection<EntityModel<String>> findAll() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public EntityModel<String> findById(String id) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public MultiGetResultDto<String, String> findAllByIds(Collection<String> ids) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void deleteById(String id) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void deleteByIds(Collection<String> ids) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package es.common.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector that counts the SQL statements prepared by the current thread.<br><br>
+ *
+ * It does not modify the statements. To be enabled, it must be registered on the persistence unit:
+ * <pre>
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector=es.common.util.CountingStatementInspector
+ * </pre>
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+	private static final long serialVersionUID = -3170536473219566412L;
+
+	/**
+	 * Statements prepared by each thread since the last reset
+	 */
+	private static final ThreadLocal<long[]> COUNTER = ThreadLocal.withInitial(() -> new long[1]);
+
+	@Override
+	public String inspect(String sql) {
+
+		COUNTER.get()[0]++;
+		return sql;
+	}
+
+	/**
+	 * Returns the number of statements prepared by the current thread since the last reset
+	 *
+	 * @return the statement count
+	 */
+	public static long current() {
+
+		return COUNTER.get()[0];
+	}
+
+	/**
+	 * Resets the statement count of the current thread
+	 */
+	public static void reset() {
+
+		COUNTER.get()[0] = 0L;
+	}
+
+}
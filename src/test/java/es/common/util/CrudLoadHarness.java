@@ -0,0 +1,472 @@
+package es.common.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import org.springframework.hateoas.EntityModel;
+
+import es.common.service.ICommonMinifiedService;
+import es.common.service.ICommonService;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.apachecommons.CommonsLog;
+
+/**
+ * Load harness that drives a mixed CRUD workload against a common service and reports
+ * the throughput and the latency percentiles of every operation.<br><br>
+ *
+ * The harness is part of the test sources, so it is not shipped on the library jar. The
+ * {@link es.common.sample.SampleApplication} runs it over a sample entity and service on an
+ * embedded H2 database. The data set is loaded first through {@code saveAll} and then every
+ * worker thread runs its share of operations, chosen randomly with the configured
+ * weights.<br><br>
+ *
+ * The SQL statement counts are only reported when {@link CountingStatementInspector} is
+ * registered on the persistence unit; otherwise they are reported as zero.
+ *
+ * @param <D> the DTO associated with the domain entity
+ * @param <K> the identifier of the entity
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@CommonsLog
+public class CrudLoadHarness<D, K> {
+
+	/**
+	 * Operations that the harness is able to run
+	 */
+	public enum Operation {
+		FIND_BY_ID, FIND_BY_ID_MINIFIED, FIND_ALL_BY_IDS, SAVE, UPDATE, DELETE
+	}
+
+	private final ICommonService<D, K> service;
+	private final Function<Long, D> newDtoFactory;
+	private final Function<K, D> updateDtoFactory;
+	private final Function<D, K> idExtractor;
+
+	public CrudLoadHarness(ICommonService<D, K> service, Function<Long, D> newDtoFactory,
+			Function<K, D> updateDtoFactory, Function<D, K> idExtractor) {
+		super();
+		this.service = service;
+		this.newDtoFactory = newDtoFactory;
+		this.updateDtoFactory = updateDtoFactory;
+		this.idExtractor = idExtractor;
+	}
+
+	/**
+	 * Loads the initial data set and runs the configured workload
+	 *
+	 * @param config the workload to be run
+	 * @return the report with the measures of every operation
+	 * @throws InterruptedException if the thread is interrupted while waiting for the workers
+	 */
+	public LoadReport run(LoadConfig config) throws InterruptedException {
+
+		if (config.getWeights().containsKey(Operation.FIND_BY_ID_MINIFIED)
+				&& !(service instanceof ICommonMinifiedService))
+			throw new IllegalArgumentException("Minified operations need an ICommonMinifiedService");
+
+		IdPool<K> ids = new IdPool<>(config.getInitialRows());
+
+		long loadStart = System.nanoTime();
+		populate(config, ids);
+		log.info(String.format("Loaded %d rows in %d ms", config.getInitialRows(),
+				(System.nanoTime() - loadStart) / 1_000_000L));
+
+		Operation[] schedule = buildSchedule(config.getWeights());
+
+		ExecutorService executor = Executors.newFixedThreadPool(config.getConcurrency());
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Map<Operation, Recorder>>> futures = new ArrayList<>();
+
+		try {
+
+			for (int i = 0; i < config.getConcurrency(); i++)
+				futures.add(executor.submit(() -> work(config, schedule, ids, start)));
+
+			long runStart = System.nanoTime();
+			start.countDown();
+
+			Map<Operation, Recorder> merged = new EnumMap<>(Operation.class);
+
+			for (Future<Map<Operation, Recorder>> future : futures) {
+
+				try {
+					future.get().forEach((op, recorder) -> merged
+							.computeIfAbsent(op, o -> new Recorder()).merge(recorder));
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Load worker failed", e.getCause());
+				}
+			}
+
+			long elapsed = System.nanoTime() - runStart;
+
+			List<OperationStats> stats = new ArrayList<>();
+			merged.forEach((op, recorder) -> stats.add(recorder.toStats(op, elapsed)));
+
+			return new LoadReport(config.getConcurrency(), config.getInitialRows(), elapsed, stats);
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// ###################
+	// # Private methods #
+	// ###################
+
+	private void populate(LoadConfig config, IdPool<K> ids) {
+
+		long sequence = 0;
+
+		while (sequence < config.getInitialRows()) {
+
+			int chunk = (int) Math.min(config.getLoadChunkSize(), config.getInitialRows() - sequence);
+			List<D> dtos = new ArrayList<>(chunk);
+
+			for (int i = 0; i < chunk; i++)
+				dtos.add(newDtoFactory.apply(sequence++));
+
+			for (EntityModel<D> saved : service.saveAll(dtos))
+				ids.add(idExtractor.apply(saved.getContent()));
+		}
+	}
+
+	private Map<Operation, Recorder> work(LoadConfig config, Operation[] schedule, IdPool<K> ids,
+			CountDownLatch start) throws InterruptedException {
+
+		Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		start.await();
+
+		for (long i = 0; i < config.getOperationsPerThread(); i++) {
+
+			Operation op = schedule[random.nextInt(schedule.length)];
+			Recorder recorder = recorders.computeIfAbsent(op, o -> new Recorder());
+
+			CountingStatementInspector.reset();
+			long begin = System.nanoTime();
+
+			try {
+
+				if (!execute(op, config, ids, random))
+					continue;
+
+				recorder.record(System.nanoTime() - begin, CountingStatementInspector.current());
+
+			} catch (RuntimeException e) {
+
+				recorder.error();
+			}
+		}
+
+		return recorders;
+	}
+
+	/**
+	 * Runs a single operation
+	 *
+	 * @return false if there was no data to run the operation with
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean execute(Operation op, LoadConfig config, IdPool<K> ids, ThreadLocalRandom random) {
+
+		switch (op) {
+
+		case FIND_BY_ID: {
+			K id = ids.random(random);
+			if (id == null) return false;
+			service.findById(id);
+			return true;
+		}
+		case FIND_BY_ID_MINIFIED: {
+			K id = ids.random(random);
+			if (id == null) return false;
+			((ICommonMinifiedService<D, K, ?>) service).findByIdMinified(id);
+			return true;
+		}
+		case FIND_ALL_BY_IDS: {
+			List<K> batch = new ArrayList<>(config.getBatchSize());
+			for (int i = 0; i < config.getBatchSize(); i++) {
+				K id = ids.random(random);
+				if (id != null) batch.add(id);
+			}
+			if (batch.isEmpty()) return false;
+			service.findAllByIds(batch);
+			return true;
+		}
+		case SAVE: {
+			EntityModel<D> saved = service.save(newDtoFactory.apply(random.nextLong(Long.MAX_VALUE)));
+			ids.add(idExtractor.apply(saved.getContent()));
+			return true;
+		}
+		case UPDATE: {
+			K id = ids.random(random);
+			if (id == null) return false;
+			service.update(updateDtoFactory.apply(id));
+			return true;
+		}
+		case DELETE: {
+			K id = ids.take(random);
+			if (id == null) return false;
+			service.deleteById(id);
+			return true;
+		}
+		default:
+			throw new IllegalArgumentException("Unsupported operation " + op);
+		}
+	}
+
+	private static Operation[] buildSchedule(Map<Operation, Integer> weights) {
+
+		List<Operation> schedule = new ArrayList<>();
+
+		weights.forEach((op, weight) -> {
+			for (int i = 0; i < weight; i++)
+				schedule.add(op);
+		});
+
+		if (schedule.isEmpty())
+			throw new IllegalArgumentException("At least one operation must have a positive weight");
+
+		return schedule.toArray(new Operation[0]);
+	}
+
+	// #################
+	// # Inner classes #
+	// #################
+
+	/**
+	 * Workload to be run by the harness
+	 */
+	@Getter
+	@Builder
+	public static class LoadConfig {
+
+		/**
+		 * Number of worker threads
+		 */
+		@Builder.Default
+		private final int concurrency = 8;
+
+		/**
+		 * Rows loaded before the workload starts
+		 */
+		@Builder.Default
+		private final long initialRows = 1_000L;
+
+		/**
+		 * Number of DTOs sent on every saveAll call while loading the data set
+		 */
+		@Builder.Default
+		private final int loadChunkSize = 1_000;
+
+		/**
+		 * Operations run by every worker thread
+		 */
+		@Builder.Default
+		private final long operationsPerThread = 10_000L;
+
+		/**
+		 * Number of identifiers requested on every multi-get operation
+		 */
+		@Builder.Default
+		private final int batchSize = 100;
+
+		/**
+		 * Relative weight of every operation in the workload
+		 */
+		@Builder.Default
+		private final Map<Operation, Integer> weights = Map.of(
+				Operation.FIND_BY_ID, 70,
+				Operation.SAVE, 10,
+				Operation.UPDATE, 15,
+				Operation.DELETE, 5);
+	}
+
+	/**
+	 * Measures of a whole run
+	 */
+	@Getter
+	public static class LoadReport {
+
+		private final int concurrency;
+		private final long initialRows;
+		private final long elapsedNanos;
+		private final Collection<OperationStats> operations;
+
+		public LoadReport(int concurrency, long initialRows, long elapsedNanos,
+				Collection<OperationStats> operations) {
+			this.concurrency = concurrency;
+			this.initialRows = initialRows;
+			this.elapsedNanos = elapsedNanos;
+			this.operations = operations;
+		}
+
+		/**
+		 * Returns the throughput of all the operations together
+		 *
+		 * @return operations per second
+		 */
+		public double getThroughput() {
+
+			long total = operations.stream().mapToLong(OperationStats::getCount).sum();
+			return total * 1_000_000_000d / elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("Concurrency: %d, rows: %d, elapsed: %d ms, throughput: %.1f ops/s%n",
+					concurrency, initialRows, elapsedNanos / 1_000_000L, getThroughput()));
+			sb.append(String.format("%-20s %10s %8s %12s %10s %10s %10s %10s%n",
+					"operation", "count", "errors", "ops/s", "p50 us", "p99 us", "p999 us", "sql/op"));
+
+			for (OperationStats op : operations)
+				sb.append(String.format("%-20s %10d %8d %12.1f %10d %10d %10d %10.2f%n",
+						op.getOperation(), op.getCount(), op.getErrors(), op.getThroughput(),
+						op.getP50Nanos() / 1_000L, op.getP99Nanos() / 1_000L, op.getP999Nanos() / 1_000L,
+						op.getStatementsPerOperation()));
+
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Measures of a single operation type
+	 */
+	@Getter
+	public static class OperationStats {
+
+		private final Operation operation;
+		private final long count;
+		private final long errors;
+		private final double throughput;
+		private final long p50Nanos;
+		private final long p99Nanos;
+		private final long p999Nanos;
+		private final double statementsPerOperation;
+
+		public OperationStats(Operation operation, long count, long errors, double throughput,
+				long p50Nanos, long p99Nanos, long p999Nanos, double statementsPerOperation) {
+			this.operation = operation;
+			this.count = count;
+			this.errors = errors;
+			this.throughput = throughput;
+			this.p50Nanos = p50Nanos;
+			this.p99Nanos = p99Nanos;
+			this.p999Nanos = p999Nanos;
+			this.statementsPerOperation = statementsPerOperation;
+		}
+	}
+
+	/**
+	 * Latencies and statement counts collected by a single worker. Not thread safe
+	 */
+	private static class Recorder {
+
+		private long[] latencies = new long[1024];
+		private int size;
+		private long errors;
+		private long statements;
+
+		void record(long nanos, long statementCount) {
+
+			if (size == latencies.length)
+				latencies = Arrays.copyOf(latencies, size * 2);
+
+			latencies[size++] = nanos;
+			statements += statementCount;
+		}
+
+		void error() {
+
+			errors++;
+		}
+
+		void merge(Recorder other) {
+
+			if (size + other.size > latencies.length)
+				latencies = Arrays.copyOf(latencies, size + other.size);
+
+			System.arraycopy(other.latencies, 0, latencies, size, other.size);
+			size += other.size;
+			errors += other.errors;
+			statements += other.statements;
+		}
+
+		OperationStats toStats(Operation op, long elapsedNanos) {
+
+			long[] sorted = Arrays.copyOf(latencies, size);
+			Arrays.sort(sorted);
+
+			return new OperationStats(op, size, errors,
+					size * 1_000_000_000d / elapsedNanos,
+					percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+					size == 0 ? 0d : (double) statements / size);
+		}
+
+		private static long percentile(long[] sorted, double percentile) {
+
+			if (sorted.length == 0)
+				return 0L;
+
+			int index = (int) Math.ceil(percentile * sorted.length) - 1;
+			return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+		}
+	}
+
+	/**
+	 * Identifiers of the rows currently stored, shared by all the workers
+	 */
+	private static class IdPool<K> {
+
+		private final List<K> ids;
+
+		IdPool(long expected) {
+
+			this.ids = new ArrayList<>((int) Math.min(expected, Integer.MAX_VALUE - 8));
+		}
+
+		synchronized void add(K id) {
+
+			ids.add(id);
+		}
+
+		synchronized K random(ThreadLocalRandom random) {
+
+			return ids.isEmpty() ? null : ids.get(random.nextInt(ids.size()));
+		}
+
+		/**
+		 * Removes a random identifier, so it is not used by any other worker
+		 */
+		synchronized K take(ThreadLocalRandom random) {
+
+			if (ids.isEmpty())
+				return null;
+
+			int index = random.nextInt(ids.size());
+			K id = ids.get(index);
+			ids.set(index, ids.get(ids.size() - 1));
+			ids.remove(ids.size() - 1);
+
+			return id;
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package es.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import es.common.sample.SampleApplication;
+import es.common.sample.SampleService;
+import es.common.util.CrudLoadHarness.LoadConfig;
+import es.common.util.CrudLoadHarness.LoadReport;
+import es.common.util.CrudLoadHarness.Operation;
+import es.common.util.CrudLoadHarness.OperationStats;
+
+/**
+ * Runs a small workload of the {@link CrudLoadHarness} over the sample service on H2
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+@SpringBootTest(classes = SampleApplication.class,
+		properties = { SampleApplication.STATEMENT_INSPECTOR_PROPERTY, SampleApplication.BATCH_SIZE_PROPERTY })
+class CrudLoadHarnessTest {
+
+	@Autowired
+	private SampleService service;
+
+	@Test
+	void mixedWorkloadIsMeasured() throws InterruptedException {
+
+		LoadConfig config = LoadConfig.builder()
+				.concurrency(1)
+				.initialRows(200L)
+				.loadChunkSize(50)
+				.operationsPerThread(300L)
+				.batchSize(10)
+				.weights(Map.of(
+						Operation.FIND_BY_ID, 4,
+						Operation.FIND_BY_ID_MINIFIED, 2,
+						Operation.FIND_ALL_BY_IDS, 2,
+						Operation.SAVE, 2,
+						Operation.UPDATE, 2,
+						Operation.DELETE, 1))
+				.build();
+
+		LoadReport report = SampleApplication.harness(service).run(config);
+
+		assertEquals(Operation.values().length, report.getOperations().size());
+
+		for (OperationStats stats : report.getOperations()) {
+
+			assertEquals(0L, stats.getErrors(), stats.getOperation() + " failed");
+			assertTrue(stats.getCount() > 0L);
+			assertTrue(stats.getStatementsPerOperation() >= 1d, stats.getOperation() + " ran no statements");
+			assertTrue(stats.getP50Nanos() <= stats.getP99Nanos() && stats.getP99Nanos() <= stats.getP999Nanos());
+		}
+
+		assertTrue(report.getThroughput() > 0d);
+	}
+
+}
@@ -0,0 +1,89 @@
+package es.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+
+/**
+ * Checks that the tokens of {@link TokenIssuer} are parsed by jjwt and by {@link TokenValidator}
+ *
+ * @author diego cortavitarte
+ * @version 202410
+ */
+class TokenIssuerTest {
+
+	@Test
+	void rsaTokensAreVerifiedByJjwt() throws NoSuchAlgorithmException {
+
+		KeyPair keyPair = keyPair("RSA", 2048);
+		TokenIssuer issuer = new TokenIssuer("PM", keyPair.getPrivate(), null, 60L, Map.of("tenant", "t1"));
+
+		var jws = Jwts.parser().verifyWith(keyPair.getPublic()).build()
+				.parseSignedClaims(issuer.issue("diego", Map.of("scope", "read")));
+
+		assertEquals("RS256", jws.getHeader().getAlgorithm());
+		assertEquals("PM", jws.getPayload().getIssuer());
+		assertEquals("diego", jws.getPayload().getSubject());
+		assertEquals("t1", jws.getPayload().get("tenant"));
+		assertEquals("read", jws.getPayload().get("scope"));
+		assertEquals(60L, (jws.getPayload().getExpiration().getTime() - jws.getPayload().getIssuedAt().getTime()) / 1000L);
+	}
+
+	@Test
+	void ecTokensAreVerifiedThroughTheKeyRing() throws NoSuchAlgorithmException {
+
+		KeyPair keyPair = keyPair("EC", 256);
+		TokenIssuer issuer = new TokenIssuer("PM", keyPair.getPrivate(), "k1", 60L, Map.of());
+		TokenKeyRing keyRing = new TokenKeyRing(Map.of("k1", keyPair.getPublic()));
+
+		Claims claims = new TokenValidator().validate(issuer.issue("diego", null), keyRing, 0L);
+
+		assertEquals("diego", claims.getSubject());
+		assertThrows(JwtException.class, () -> new TokenValidator()
+				.validate(issuer.issue("diego", null), new TokenKeyRing(Map.of("k2", keyPair.getPublic())), 0L));
+	}
+
+	@Test
+	void registeredClaimsCanNotBeOverridden() throws NoSuchAlgorithmException {
+
+		KeyPair keyPair = keyPair("EC", 256);
+		TokenIssuer issuer = new TokenIssuer("PM", keyPair.getPrivate(), null, 60L, Map.of(Claims.ISSUER, "other"));
+
+		Claims claims = new TokenValidator().validate(
+				issuer.issue("diego", Map.of(Claims.SUBJECT, "admin")), keyPair.getPublic());
+
+		assertEquals("PM", claims.getIssuer());
+		assertEquals("diego", claims.getSubject());
+	}
+
+	@Test
+	void batchTokensShareTheIssueDate() throws NoSuchAlgorithmException {
+
+		KeyPair keyPair = keyPair("EC", 256);
+		TokenIssuer issuer = new TokenIssuer("PM", keyPair.getPrivate(), null, 60L, Map.of());
+
+		Map<String, String> tokens = issuer.issueAll(Map.of("a", Map.of(), "b", Map.of()));
+
+		assertEquals(new TokenValidator().validate(tokens.get("a"), keyPair.getPublic()).getIssuedAt(),
+				new TokenValidator().validate(tokens.get("b"), keyPair.getPublic()).getIssuedAt());
+	}
+
+	private static KeyPair keyPair(String algorithm, int size) throws NoSuchAlgorithmException {
+
+		KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+		generator.initialize(size);
+
+		return generator.generateKeyPair();
+	}
+
+}